@@ -0,0 +1,34 @@
+package guru.nicks.commons.notification.benchmark;
+
+import guru.nicks.commons.notification.NotificationCategory;
+
+import org.slf4j.event.Level;
+
+/**
+ * Notification categories used in benchmarks.
+ */
+public enum BenchmarkCategory implements NotificationCategory {
+
+    INFO(Level.INFO, "Information"),
+    WARNING(Level.WARN, "Warning"),
+    ERROR(Level.ERROR, "Remote call failed");
+
+    private final Level logLevel;
+    private final String description;
+
+    BenchmarkCategory(Level logLevel, String description) {
+        this.logLevel = logLevel;
+        this.description = description;
+    }
+
+    @Override
+    public Level getLogLevel() {
+        return logLevel;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+}
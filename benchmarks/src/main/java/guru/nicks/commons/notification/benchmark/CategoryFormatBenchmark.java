@@ -0,0 +1,45 @@
+package guru.nicks.commons.notification.benchmark;
+
+import guru.nicks.commons.notification.NotificationCategory;
+import guru.nicks.commons.notification.impl.CategoryTitles;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link NotificationCategory#format(String)}, called for each email and Slack message, against its
+ * memoized variant used by the built-in transports.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CategoryFormatBenchmark {
+
+    // non-final, to prevent constant folding
+    private BenchmarkCategory category = BenchmarkCategory.ERROR;
+    private String originator = "benchmark-app";
+    private CategoryTitles<BenchmarkCategory> titles = new CategoryTitles<>(c -> c.format("benchmark-app"));
+
+    @Benchmark
+    public String format() {
+        return category.format(originator);
+    }
+
+    @Benchmark
+    public String cachedFormat() {
+        return titles.get(category);
+    }
+
+}
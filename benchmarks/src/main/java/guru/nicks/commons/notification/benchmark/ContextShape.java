@@ -0,0 +1,72 @@
+package guru.nicks.commons.notification.benchmark;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shapes of {@code messageContext} maps passed to notification transports.
+ */
+public enum ContextShape {
+
+    /**
+     * A few short entries - the typical case.
+     */
+    SMALL {
+        @Override
+        public Map<String, Object> create() {
+            var context = new LinkedHashMap<String, Object>();
+            context.put("requestId", "0f8fad5b-d9cb-469f-a165-70867728950e");
+            context.put("userId", 12345L);
+            context.put("endpoint", "/api/v1/orders");
+            return context;
+        }
+    },
+
+    /**
+     * Many flat entries, some of them long.
+     */
+    LARGE {
+        @Override
+        public Map<String, Object> create() {
+            var context = new LinkedHashMap<String, Object>();
+
+            for (int i = 0; i < 100; i++) {
+                context.put("key" + i, (i % 10 == 0)
+                        ? "long value ".repeat(50)
+                        : "value" + i);
+            }
+
+            return context;
+        }
+    },
+
+    /**
+     * Entries containing nested maps and lists.
+     */
+    NESTED {
+        @Override
+        public Map<String, Object> create() {
+            Map<String, Object> context = SMALL.create();
+            Map<String, Object> level = context;
+
+            for (int depth = 0; depth < 5; depth++) {
+                var nested = new LinkedHashMap<String, Object>();
+                nested.put("depth", depth);
+                nested.put("timestamp", Instant.EPOCH.plusSeconds(depth));
+                nested.put("items", List.of("a", "b", "c", depth));
+                level.put("nested", nested);
+                level = nested;
+            }
+
+            return context;
+        }
+    };
+
+    /**
+     * @return new mutable context map
+     */
+    public abstract Map<String, Object> create();
+
+}
@@ -0,0 +1,76 @@
+package guru.nicks.commons.notification.benchmark;
+
+import guru.nicks.commons.notification.impl.NotificationTransportImplEmail;
+import guru.nicks.commons.notification.service.EmailService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link NotificationTransportImplEmail} template context building (including context stringification), with
+ * an email service which doesn't render or send anything.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailTransportBenchmark {
+
+    @Param({"SMALL", "LARGE", "NESTED"})
+    public ContextShape contextShape;
+
+    private StubEmailService emailService;
+    private NotificationTransportImplEmail<BenchmarkCategory> transport;
+    private Map<String, Object> messageContext;
+
+    @Setup
+    public void setUp() {
+        emailService = new StubEmailService();
+        transport = new NotificationTransportImplEmail<>(emailService, "benchmark-app",
+                "from@example.com", "to@example.com", "notification.ftl");
+        messageContext = contextShape.create();
+    }
+
+    @Benchmark
+    public void send(Blackhole blackhole) {
+        emailService.blackhole = blackhole;
+        transport.send(BenchmarkCategory.ERROR, "Remote call failed", messageContext);
+    }
+
+    /**
+     * Email service passing template context to {@link Blackhole} instead of rendering and sending it.
+     */
+    public static class StubEmailService implements EmailService {
+
+        private Blackhole blackhole;
+
+        @Override
+        public void sendHtmlWithTemplate(String from, String to, String subject, String templateName,
+                Map<?, ?> templateContext) {
+            blackhole.consume(subject);
+            blackhole.consume(templateContext);
+        }
+
+        @Override
+        public void sendHtml(String from, String to, String subject, String body) {
+            blackhole.consume(body);
+        }
+
+    }
+
+}
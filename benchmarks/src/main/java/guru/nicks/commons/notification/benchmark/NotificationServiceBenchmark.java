@@ -0,0 +1,118 @@
+package guru.nicks.commons.notification.benchmark;
+
+import guru.nicks.commons.notification.Notification;
+import guru.nicks.commons.notification.NotificationTransport;
+import guru.nicks.commons.notification.impl.NotificationServiceImpl;
+import guru.nicks.commons.notification.impl.NotificationServiceSettings;
+import guru.nicks.commons.notification.impl.TransportExecutorStrategy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures {@link NotificationServiceImpl#send(guru.nicks.commons.notification.NotificationCategory, String, Map)}
+ * overhead: fan-out, result collection and logging, with transports doing nothing. Also compares sending
+ * {@value #BULK_SIZE} notifications in a loop and in bulk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationServiceBenchmark {
+
+    private static final int BULK_SIZE = 100;
+
+    @Param({"SMALL", "LARGE", "NESTED"})
+    public ContextShape contextShape;
+
+    @Param({"CALLER_THREAD", "VIRTUAL_THREAD"})
+    public String executor;
+
+    private NotificationServiceImpl<BenchmarkCategory> notificationService;
+    private Map<String, Object> messageContext;
+    private List<Notification<BenchmarkCategory>> notifications;
+
+    @Setup
+    public void setUp() {
+        var settings = NotificationServiceSettings.builder()
+                .transportExecutorStrategy("CALLER_THREAD".equals(executor)
+                        ? TransportExecutorStrategy.callerThread()
+                        : TransportExecutorStrategy.virtualThreadPerTransport())
+                .build();
+
+        notificationService = new NotificationServiceImpl<>(
+                List.of(new StubTransport(), new StubTransport(), new StubTransport()),
+                feature -> true, settings);
+        messageContext = contextShape.create();
+        notifications = new ArrayList<>(BULK_SIZE);
+
+        for (int i = 0; i < BULK_SIZE; i++) {
+            notifications.add(new Notification<>(BenchmarkCategory.ERROR, "Remote call failed", messageContext));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        notificationService.close();
+    }
+
+    @Benchmark
+    public boolean send() {
+        return notificationService.send(BenchmarkCategory.ERROR, "Remote call failed", messageContext);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public int sendInLoop() {
+        int sentCount = 0;
+
+        for (Notification<BenchmarkCategory> notification : notifications) {
+            if (notificationService.send(notification.category(), notification.message(),
+                    notification.messageContext())) {
+                sentCount++;
+            }
+        }
+
+        return sentCount;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public List<Boolean> sendAll() {
+        return notificationService.sendAll(notifications);
+    }
+
+    /**
+     * Transport which only counts calls.
+     */
+    public static class StubTransport implements NotificationTransport<BenchmarkCategory> {
+
+        private final LongAdder callCount = new LongAdder();
+
+        @Override
+        public void send(BenchmarkCategory category, String message, Map<String, ?> messageContext) {
+            callCount.increment();
+        }
+
+    }
+
+}
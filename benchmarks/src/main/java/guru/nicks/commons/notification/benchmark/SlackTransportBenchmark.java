@@ -0,0 +1,73 @@
+package guru.nicks.commons.notification.benchmark;
+
+import guru.nicks.commons.notification.impl.LightweightSlackServiceImpl;
+import guru.nicks.commons.notification.impl.NotificationTransportImplSlack;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link NotificationTransportImplSlack} message building and {@link LightweightSlackServiceImpl} JSON
+ * payload building, with a REST client which doesn't send anything.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SlackTransportBenchmark {
+
+    @Param({"SMALL", "LARGE", "NESTED"})
+    public ContextShape contextShape;
+
+    private NotificationTransportImplSlack<BenchmarkCategory> transport;
+    private Map<String, Object> messageContext;
+
+    @Setup
+    public void setUp() throws Exception {
+        URL webHookUrl = URI.create("https://hooks.slack.com/services/benchmark").toURL();
+        var objectMapper = new ObjectMapper().findAndRegisterModules();
+        var slackService = new LightweightSlackServiceImpl("benchmark", webHookUrl, new StubRestTemplate(),
+                objectMapper);
+
+        transport = new NotificationTransportImplSlack<>(slackService, objectMapper, "benchmark-app");
+        messageContext = contextShape.create();
+    }
+
+    @Benchmark
+    public void send() {
+        transport.send(BenchmarkCategory.ERROR, "Remote call failed", messageContext);
+    }
+
+    /**
+     * REST client which doesn't send anything.
+     */
+    public static class StubRestTemplate extends RestTemplate {
+
+        @Override
+        public <T> ResponseEntity<T> postForEntity(String url, Object request, Class<T> responseType,
+                Object... uriVariables) {
+            return ResponseEntity.ok().build();
+        }
+
+    }
+
+}
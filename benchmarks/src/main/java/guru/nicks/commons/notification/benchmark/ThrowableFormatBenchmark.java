@@ -0,0 +1,70 @@
+package guru.nicks.commons.notification.benchmark;
+
+import guru.nicks.commons.notification.impl.ThrowableFormatter;
+import guru.nicks.commons.utils.ExceptionUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures formatting of the same exception (as happens during exception storms) by
+ * {@link ExceptionUtils#formatWithCompactStackTrace(Throwable)} and by {@link ThrowableFormatter}, with and without
+ * its stack trace cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThrowableFormatBenchmark {
+
+    @Param({"10", "100"})
+    private int stackDepth;
+
+    private Throwable exception;
+    private ThrowableFormatter cachingFormatter;
+    private ThrowableFormatter nonCachingFormatter;
+
+    @Setup
+    public void setUp() {
+        exception = new IllegalStateException("Wrapper", throwAt(stackDepth));
+        cachingFormatter = ThrowableFormatter.withDefaults();
+        nonCachingFormatter = new ThrowableFormatter(20, 20, 5, 0, ThrowableFormatter.DEFAULT_EXCLUDED_PACKAGES);
+    }
+
+    @Benchmark
+    public String compactStackTrace() {
+        return ExceptionUtils.formatWithCompactStackTrace(exception);
+    }
+
+    @Benchmark
+    public String uncachedFormat() {
+        return nonCachingFormatter.format(exception);
+    }
+
+    @Benchmark
+    public String cachedFormat() {
+        return cachingFormatter.format(exception);
+    }
+
+    private static RuntimeException throwAt(int depth) {
+        if (depth > 0) {
+            return throwAt(depth - 1);
+        }
+
+        return new RuntimeException("Benchmark failure");
+    }
+
+}
@@ -0,0 +1,39 @@
+package guru.nicks.commons.notification;
+
+import java.util.Map;
+
+/**
+ * Notification to be sent in bulk (see
+ * {@link guru.nicks.commons.notification.service.NotificationService#sendAll(java.util.Collection)}).
+ *
+ * @param category       notification category
+ * @param message        message text
+ * @param messageContext key/value context to append after the message text
+ * @param <T>            notification category type
+ */
+public record Notification<T extends NotificationCategory>(
+
+        T category,
+        String message,
+        Map<String, ?> messageContext) {
+
+    /**
+     * Constructor.
+     *
+     * @throws IllegalArgumentException category or message is {@code null}
+     */
+    public Notification {
+        if ((category == null) || (message == null)) {
+            throw new IllegalArgumentException("Notification category and message must be set");
+        }
+
+        if (messageContext == null) {
+            messageContext = Map.of();
+        }
+    }
+
+    public static <T extends NotificationCategory> Notification<T> of(T category, String message) {
+        return new Notification<>(category, message, Map.of());
+    }
+
+}
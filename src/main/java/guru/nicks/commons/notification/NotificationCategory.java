@@ -17,16 +17,14 @@ public interface NotificationCategory {
     String getDescription();
 
     /**
-     * Formats fields: <code>[logLevel] originator - description</code>.
+     * Formats fields: <code>[logLevel] originator - description</code>. Built-in transports cache the result per enum
+     * category, see {@code CategoryTitles}.
      *
      * @param originator message originator, such as application name
      * @return string, can be used as a message title
      */
     default String format(String originator) {
-        return String.format(Locale.US, "[%s] %s - %s",
-                getLogLevel().toString().toLowerCase(),
-                originator,
-                getDescription());
+        return "[" + getLogLevel().name().toLowerCase(Locale.US) + "] " + originator + " - " + getDescription();
     }
 
 }
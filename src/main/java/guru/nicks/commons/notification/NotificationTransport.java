@@ -1,10 +1,13 @@
 package guru.nicks.commons.notification;
 
+import java.util.List;
 import java.util.Map;
 
 /**
- * Notification transports may filter out the messages by category, apply throttling, etc. Subclasses are encouraged to
- * create Spring beans and annotate them with rate limiting and circuit breaking annotations.
+ * Notification transports may filter out the messages by category, apply throttling, etc. Note that
+ * {@link guru.nicks.commons.notification.impl.NotificationServiceImpl} has built-in per-category and per-transport rate
+ * limiting (see {@link guru.nicks.commons.notification.impl.NotificationServiceSettings}), which is cheaper than
+ * proxy-based rate limiting annotations.
  *
  * @param <T> notification category type
  */
@@ -19,4 +22,32 @@ public interface NotificationTransport<T extends NotificationCategory> {
      */
     void send(T category, String message, Map<String, ?> messageContext);
 
+    /**
+     * Sends notifications in one pass. Default implementation calls
+     * {@link #send(NotificationCategory, String, Map)} for each notification; transports capable of sending several
+     * notifications at once (over a single connection, in a single payload, etc.) are encouraged to override this.
+     * <p>
+     * A batch either succeeds or fails as a whole: if an exception is thrown, all its notifications are considered
+     * failed (and may be re-sent on retry), including those sent before the error.
+     *
+     * @param notifications notifications to send, in order
+     */
+    default void sendBatch(List<Notification<T>> notifications) {
+        for (Notification<T> notification : notifications) {
+            send(notification.category(), notification.message(), notification.messageContext());
+        }
+    }
+
+    /**
+     * Tells if successful {@link #send(NotificationCategory, String, Map)} means the notification has been delivered.
+     * Transports which only buffer notifications in memory return {@code false}: the notification outbox of
+     * {@link guru.nicks.commons.notification.impl.NotificationServiceImpl} doesn't cover them, because it has no way to
+     * know when (and if) buffered notifications are delivered.
+     *
+     * @return {@code true} by default
+     */
+    default boolean confirmsDelivery() {
+        return true;
+    }
+
 }
@@ -1,13 +1,19 @@
 package guru.nicks.commons.notification.config;
 
 import guru.nicks.commons.notification.impl.EmailServiceImpl;
+import guru.nicks.commons.notification.impl.RenderedTemplateCache;
+import guru.nicks.commons.notification.impl.SmtpTransportPool;
 import guru.nicks.commons.notification.service.EmailService;
 import guru.nicks.commons.service.FreemarkerTemplateService;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.mail.javamail.JavaMailSender;
 
 @AutoConfiguration
@@ -15,13 +21,37 @@ import org.springframework.mail.javamail.JavaMailSender;
 public class CommonsNotificationAutoConfiguration {
 
     /**
-     * Creates {@link EmailService} bean if it's not already present.
+     * Creates {@link EmailService} bean if it's not already present. If there's a {@link SmtpTransportPool} bean,
+     * messages are sent over pooled SMTP connections. If there's a {@link RenderedTemplateCache} bean, rendered
+     * templates are cached.
      */
     @ConditionalOnMissingBean(EmailService.class)
     @Bean
-    public EmailService emailService(JavaMailSender mailSender, FreemarkerTemplateService templateService) {
+    public EmailService emailService(JavaMailSender mailSender, FreemarkerTemplateService templateService,
+            ObjectProvider<SmtpTransportPool> transportPool,
+            ObjectProvider<RenderedTemplateCache> renderedTemplateCache) {
         log.debug("Building {} bean", EmailService.class.getSimpleName());
-        return new EmailServiceImpl(mailSender, templateService);
+        return new EmailServiceImpl(mailSender, templateService,
+                transportPool.getIfAvailable(), renderedTemplateCache.getIfAvailable());
+    }
+
+    /**
+     * Micrometer is optional, therefore its classes are referenced only if it's present.
+     */
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @Configuration(proxyBeanMethods = false)
+    public static class MetricsConfiguration {
+
+        /**
+         * Creates bean post-processor which binds notification services to Micrometer. Static because bean
+         * post-processors are instantiated before regular beans.
+         */
+        @Bean
+        public static NotificationMetricsBeanPostProcessor notificationMetricsBeanPostProcessor(
+                ObjectProvider<MeterRegistry> meterRegistryProvider) {
+            return new NotificationMetricsBeanPostProcessor(meterRegistryProvider);
+        }
+
     }
 
 }
@@ -0,0 +1,38 @@
+package guru.nicks.commons.notification.config;
+
+import guru.nicks.commons.notification.impl.MicrometerNotificationMetrics;
+import guru.nicks.commons.notification.impl.NotificationServiceImpl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Binds {@link NotificationServiceImpl} beans to Micrometer, if a {@link MeterRegistry} bean exists.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationMetricsBeanPostProcessor implements BeanPostProcessor {
+
+    // DI
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        // unwrap AOP proxies
+        Object target = AopProxyUtils.getSingletonTarget(bean);
+
+        if (((target != null) ? target : bean) instanceof NotificationServiceImpl<?> notificationService) {
+            meterRegistryProvider.ifAvailable(meterRegistry -> {
+                log.debug("Binding '{}' to Micrometer", beanName);
+                notificationService.bindMetrics(new MicrometerNotificationMetrics(meterRegistry, beanName));
+            });
+        }
+
+        return bean;
+    }
+
+}
@@ -0,0 +1,390 @@
+package guru.nicks.commons.notification.impl;
+
+import guru.nicks.commons.notification.impl.SlackPayloadWriter.Block;
+import guru.nicks.commons.notification.service.LightweightSlackService;
+import guru.nicks.commons.notification.service.SlackMarkdownMessage;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotBlank;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Base class for Slack web hook clients: serializes messages and (optionally) coalesces them, leaving the HTTP call to
+ * subclasses.
+ * <p>
+ * This is not a Spring bean because each instance needs a different Slack API URL - to send messages to different Slack
+ * channels. Subclasses are encouraged to create Spring beans and annotate them with rate limiting and circuit breaking
+ * annotations.
+ * <p>
+ * Optionally, Markdown messages are coalesced: those arriving within a batch window are merged into a single web hook
+ * call, which helps to stay within Slack's web hook rate limit (about 1 message per second). A batch is sent when the
+ * window closes or when it reaches {@link #MAX_BLOCKS}.
+ */
+@Slf4j
+public abstract class AbstractLightweightSlackService implements LightweightSlackService, AutoCloseable {
+
+    /**
+     * Slack refuses to send sections where 'text' is longer than this.
+     */
+    public static final int MAX_TEXT_LENGTH = 3000;
+
+    /**
+     * Slack refuses to send messages having more blocks than this.
+     */
+    public static final int MAX_BLOCKS = 50;
+
+    /**
+     * Slack refuses to send headers where 'text' is longer than this.
+     */
+    public static final int MAX_HEADER_LENGTH = 150;
+
+    private static final String TEXT = "text";
+    private static final String CONTINUED_SUFFIX = " (continued)";
+
+    private final String serviceName;
+    private final String webHookUrl;
+    private final SlackPayloadWriter payloadWriter;
+
+    @Nullable
+    private final Duration batchWindow;
+    @Nullable
+    private final ScheduledExecutorService batchScheduler;
+    /**
+     * Blocks waiting to be sent in a batch. All access must be synchronized on this list.
+     */
+    private final List<Block> pendingBlocks = new ArrayList<>();
+    @Nullable
+    private ScheduledFuture<?> pendingFlush;
+
+    /**
+     * Constructor.
+     *
+     * @param serviceName  name of this service instance (for logging purposes - the web hook URL must not be revealed
+     *                     because it contains a secret token)
+     * @param webHookUrl   Slack webhook URL for sending messages
+     * @param objectMapper JSON object mapper for constructing JSON objects sent to Slack
+     * @param batchWindow  if not {@code null}, Markdown messages sent within this window are coalesced into a single
+     *                     Slack message (sent in a background thread)
+     */
+    @ConstraintArguments
+    protected AbstractLightweightSlackService(String serviceName, URL webHookUrl, ObjectMapper objectMapper,
+            @Nullable Duration batchWindow) {
+        this.serviceName = checkNotBlank(serviceName, _AbstractLightweightSlackServiceArgumentsMeta.SERVICENAME.name());
+
+        this.webHookUrl = check(webHookUrl, _AbstractLightweightSlackServiceArgumentsMeta.WEBHOOKURL.name())
+                .notNull()
+                .constraint(url -> !url.toString().contains("$"), "contains unexpanded environment variable?")
+                .getValue()
+                .toString();
+
+        payloadWriter = new SlackPayloadWriter(
+                checkNotNull(objectMapper, _AbstractLightweightSlackServiceArgumentsMeta.OBJECTMAPPER.name()));
+
+        if (batchWindow != null) {
+            this.batchWindow = check(batchWindow, _AbstractLightweightSlackServiceArgumentsMeta.BATCHWINDOW.name())
+                    .constraint(window -> window.isPositive(), "must be positive")
+                    .getValue();
+
+            batchScheduler = NotificationThreads.newScheduler("slack-batch-" + serviceName);
+        } else {
+            this.batchWindow = null;
+            batchScheduler = null;
+        }
+    }
+
+    @ConstraintArguments
+    @Override
+    public void send(Map<String, ?> map) {
+        checkNotNull(map, _AbstractLightweightSlackServiceSendArgumentsMeta.MAP.name());
+        post(webHookUrl, logPayload(payloadWriter.writeValue(map)));
+    }
+
+    @Override
+    public CompletableFuture<Void> sendAsync(Map<String, ?> map) {
+        byte[] json;
+
+        try {
+            checkNotNull(map, "map");
+            json = logPayload(payloadWriter.writeValue(map));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return postAsync(webHookUrl, json);
+    }
+
+    @Override
+    public void sendPlainText(String text) {
+        send(Map.of(TEXT, text));
+    }
+
+    /**
+     * Sends Markdown-enriched text message to Slack. In batch mode, only enqueues the message to be sent in a
+     * background thread. Long text is split into several sections (see {@link SlackTextSplitter}); sections exceeding
+     * {@link #MAX_BLOCKS} are sent in follow-up messages.
+     *
+     * @param title message title (plain text, never {@code null}, can contain emojis)
+     * @param text  Markdown (or just plain text), never {@code null}
+     */
+    @Override
+    public void sendMarkdown(String title, String text) {
+        for (List<Block> blocks : createMarkdownMessages(title, text)) {
+            if (!enqueue(blocks)) {
+                post(webHookUrl, logPayload(payloadWriter.writeBlocks(blocks)));
+            }
+        }
+    }
+
+    /**
+     * Sends Markdown-enriched text message to Slack without blocking. In batch mode, the future is completed as soon
+     * as the message is enqueued.
+     *
+     * @param title message title (plain text, never {@code null}, can contain emojis)
+     * @param text  Markdown (or just plain text), never {@code null}
+     * @return future completed when Slack has accepted the message
+     */
+    @Override
+    public CompletableFuture<Void> sendMarkdownAsync(String title, String text) {
+        var jsons = new ArrayList<byte[]>(1);
+
+        try {
+            for (List<Block> blocks : createMarkdownMessages(title, text)) {
+                if (!enqueue(blocks)) {
+                    jsons.add(logPayload(payloadWriter.writeBlocks(blocks)));
+                }
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // follow-up messages are posted one after another, to preserve their order
+        CompletableFuture<Void> result = CompletableFuture.completedFuture(null);
+
+        for (byte[] json : jsons) {
+            result = result.thenCompose(ignored -> postAsync(webHookUrl, json));
+        }
+
+        return result;
+    }
+
+    /**
+     * Sends Markdown-enriched text messages to Slack, coalescing them into as few Slack messages as {@link #MAX_BLOCKS}
+     * allows (a message is never split between Slack messages unless it doesn't fit into one by itself). In batch
+     * mode, only enqueues the messages to be sent in a background thread.
+     *
+     * @param messages messages to send, in order
+     */
+    @Override
+    public void sendMarkdownBatch(List<SlackMarkdownMessage> messages) {
+        List<Block> payload = new ArrayList<>(MAX_BLOCKS);
+
+        for (SlackMarkdownMessage message : messages) {
+            for (List<Block> blocks : createMarkdownMessages(message.title(), message.text())) {
+                if (enqueue(blocks)) {
+                    continue;
+                }
+
+                if (payload.size() + blocks.size() > MAX_BLOCKS) {
+                    post(webHookUrl, logPayload(payloadWriter.writeBlocks(payload)));
+                    payload.clear();
+                }
+
+                payload.addAll(blocks);
+            }
+        }
+
+        if (!payload.isEmpty()) {
+            post(webHookUrl, logPayload(payloadWriter.writeBlocks(payload)));
+        }
+    }
+
+    /**
+     * @return {@code true} if a batch window has been set
+     */
+    @Override
+    public boolean isBatching() {
+        return batchWindow != null;
+    }
+
+    /**
+     * Sends the pending batch (if any) immediately, in the caller thread.
+     */
+    public void flush() {
+        List<Block> batch;
+
+        synchronized (pendingBlocks) {
+            batch = drainPendingBlocks();
+        }
+
+        sendBatch(batch);
+    }
+
+    /**
+     * Sends the pending batch (if any) and stops the batching thread.
+     */
+    @Override
+    public void close() {
+        if (batchScheduler != null) {
+            flush();
+            batchScheduler.shutdown();
+        }
+    }
+
+    /**
+     * Posts JSON to Slack, blocking until the response arrives.
+     *
+     * @param webHookUrl Slack web hook URL
+     * @param json       UTF-8 JSON bytes, to be sent as-is
+     * @throws RuntimeException Slack call failed
+     */
+    protected abstract void post(String webHookUrl, byte[] json);
+
+    /**
+     * Posts JSON to Slack without blocking.
+     *
+     * @param webHookUrl Slack web hook URL
+     * @param json       UTF-8 JSON bytes, to be sent as-is
+     * @return future completed when Slack has accepted the message, or completed exceptionally on error
+     */
+    protected abstract CompletableFuture<Void> postAsync(String webHookUrl, byte[] json);
+
+    /**
+     * @return name of this service instance
+     */
+    protected String getServiceName() {
+        return serviceName;
+    }
+
+    private byte[] logPayload(byte[] json) {
+        if (log.isTraceEnabled()) {
+            log.trace("Sending to Slack from '{}': {}", serviceName, new String(json, StandardCharsets.UTF_8));
+        } else {
+            log.info("Sending to Slack  from '{}' (log level 'trace' additionally logs sensitive message content)",
+                    serviceName);
+        }
+
+        return json;
+    }
+
+    /**
+     * Enqueues blocks if batching is on.
+     *
+     * @return {@code true} if the blocks have been enqueued, {@code false} if batching is off
+     */
+    private boolean enqueue(List<Block> blocks) {
+        if (batchScheduler == null) {
+            return false;
+        }
+
+        synchronized (pendingBlocks) {
+            // batch full - send it right away, without waiting for the window to close
+            if (pendingBlocks.size() + blocks.size() > MAX_BLOCKS) {
+                List<Block> batch = drainPendingBlocks();
+                batchScheduler.execute(() -> sendBatch(batch));
+            }
+
+            pendingBlocks.addAll(blocks);
+
+            if (pendingFlush == null) {
+                pendingFlush = batchScheduler.schedule(this::flush, batchWindow.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Must be called while holding the {@link #pendingBlocks} lock.
+     *
+     * @return pending blocks (maybe empty), removed from {@link #pendingBlocks}
+     */
+    private List<Block> drainPendingBlocks() {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+
+        List<Block> batch = List.copyOf(pendingBlocks);
+        pendingBlocks.clear();
+        return batch;
+    }
+
+    /**
+     * Sends batch, logging (rather than rethrowing) errors - the callers have already returned.
+     */
+    private void sendBatch(List<Block> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            post(webHookUrl, logPayload(payloadWriter.writeBlocks(batch)));
+        } catch (RuntimeException e) {
+            log.error("Failed to send batch of {} blocks to Slack from '{}': {}",
+                    batch.size(), serviceName, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Splits text into sections, each message holding a header and as many sections as {@link #MAX_BLOCKS} allows.
+     *
+     * @return messages (at least one), each being a list of blocks
+     */
+    private List<List<Block>> createMarkdownMessages(String title, String text) {
+        List<String> chunks = SlackTextSplitter.split(Objects.toString(text, ""), MAX_TEXT_LENGTH);
+        var messages = new ArrayList<List<Block>>(chunks.size() / (MAX_BLOCKS - 1) + 1);
+        List<Block> blocks = null;
+
+        for (String chunk : chunks) {
+            if ((blocks == null) || (blocks.size() == MAX_BLOCKS)) {
+                blocks = new ArrayList<>(MAX_BLOCKS);
+                blocks.add(Block.header(createHeader(title, !messages.isEmpty())));
+                messages.add(blocks);
+            }
+
+            blocks.add(Block.section(chunk));
+        }
+
+        return messages;
+    }
+
+    /**
+     * Truncates title (marking the cut with an ellipsis) so the header, including the suffix of follow-up messages,
+     * fits {@link #MAX_HEADER_LENGTH}.
+     */
+    private static String createHeader(String title, boolean continued) {
+        String suffix = continued ? CONTINUED_SUFFIX : "";
+        int maxTitleLength = MAX_HEADER_LENGTH - suffix.length();
+
+        if (title.length() <= maxTitleLength) {
+            return title + suffix;
+        }
+
+        int end = maxTitleLength - 1;
+
+        // don't split a surrogate pair (emojis are common in titles)
+        if (Character.isHighSurrogate(title.charAt(end - 1))) {
+            end--;
+        }
+
+        return title.substring(0, end) + "\u2026" + suffix;
+    }
+
+}
@@ -0,0 +1,246 @@
+package guru.nicks.commons.notification.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded in-memory queue drained by a few daemon worker threads. Business threads only enqueue tasks (which takes
+ * microseconds), so slow transports never affect them. Worker threads are started lazily, on first
+ * {@link #submit(BooleanSupplier)}.
+ */
+@Slf4j
+public class AsyncNotificationQueue implements AutoCloseable {
+
+    /**
+     * How often workers check if the queue has been closed while waiting for tasks.
+     */
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final BlockingQueue<Task> queue;
+    private final int workerCount;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration shutdownTimeout;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private volatile boolean started;
+    private volatile boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity        maximum number of tasks waiting in the queue
+     * @param workerCount     number of worker threads
+     * @param overflowPolicy  what to do when the queue is full
+     * @param shutdownTimeout how long {@link #close()} waits for the queue to be drained
+     * @throws IllegalArgumentException invalid arguments
+     */
+    public AsyncNotificationQueue(int capacity, int workerCount, OverflowPolicy overflowPolicy,
+            Duration shutdownTimeout) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Async queue capacity must be positive");
+        }
+
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Async worker count must be positive");
+        }
+
+        if ((overflowPolicy == null) || (shutdownTimeout == null) || shutdownTimeout.isNegative()) {
+            throw new IllegalArgumentException("Async overflow policy and shutdown timeout must be set");
+        }
+
+        queue = new ArrayBlockingQueue<>(capacity);
+        this.workerCount = workerCount;
+        this.overflowPolicy = overflowPolicy;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * Enqueues task. If the queue is full, applies {@link OverflowPolicy}. If the queue has been closed already,
+     * executes the task in the caller thread - notifications sent during shutdown are usually the important ones.
+     *
+     * @param action action to run in a worker thread, returns {@code false} on failure
+     * @return future completed with the action result, or with {@code false} if the task was dropped or has thrown an
+     *         exception (never completed exceptionally)
+     */
+    public CompletableFuture<Boolean> submit(BooleanSupplier action) {
+        var task = new Task(action, new CompletableFuture<>());
+
+        if (closed) {
+            log.debug("Async notification queue closed, sending in caller thread");
+            task.run();
+            return task.future();
+        }
+
+        startWorkersIfNeeded();
+
+        while (!queue.offer(task)) {
+            switch (overflowPolicy) {
+                case DROP_NEWEST -> {
+                    drop(task);
+                    return task.future();
+                }
+
+                case CALLER_RUNS -> {
+                    task.run();
+                    return task.future();
+                }
+
+                // retry offering after freeing a slot
+                default -> {
+                    Task oldest = queue.poll();
+
+                    if (oldest != null) {
+                        drop(oldest);
+                    }
+                }
+            }
+        }
+
+        // closed (and maybe drained already) after the check above - the task would never be taken by anyone
+        if (closed && queue.remove(task)) {
+            log.debug("Async notification queue closed, sending in caller thread");
+            task.run();
+        }
+
+        return task.future();
+    }
+
+    /**
+     * @return number of tasks waiting in the queue
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * @return number of tasks dropped due to queue overflow
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Stops accepting new tasks (they're executed in caller threads from now on) and waits for the queue to be drained.
+     * Tasks still waiting in the queue after the shutdown timeout are completed with {@code false}.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+
+        synchronized (workers) {
+            for (Thread worker : workers) {
+                try {
+                    worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            workers.forEach(Thread::interrupt);
+        }
+
+        Task task;
+        while ((task = queue.poll()) != null) {
+            drop(task);
+        }
+    }
+
+    private void startWorkersIfNeeded() {
+        if (started) {
+            return;
+        }
+
+        synchronized (workers) {
+            if (started || closed) {
+                return;
+            }
+
+            for (int i = 0; i < workerCount; i++) {
+                var worker = new Thread(this::drainQueue, "notification-async-" + i);
+                worker.setDaemon(true);
+                worker.start();
+                workers.add(worker);
+            }
+
+            started = true;
+        }
+    }
+
+    private void drainQueue() {
+        while (true) {
+            Task task;
+
+            try {
+                task = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (task != null) {
+                task.run();
+            } else if (closed) {
+                return;
+            }
+        }
+    }
+
+    private void drop(Task task) {
+        droppedCount.incrementAndGet();
+        log.warn("Async notification queue is full or closed, notification dropped");
+        task.future().complete(false);
+    }
+
+    /**
+     * What to do with a new notification when the queue is full.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Evict the oldest queued notification to make room for the new one.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Drop the new notification.
+         */
+        DROP_NEWEST,
+
+        /**
+         * Send the new notification synchronously in the caller thread (which slows the caller down, but loses
+         * nothing).
+         */
+        CALLER_RUNS
+    }
+
+    private record Task(BooleanSupplier action, CompletableFuture<Boolean> future) {
+
+        void run() {
+            try {
+                future.complete(action.getAsBoolean());
+            } catch (RuntimeException e) {
+                log.error("Async notification failed: {}", e.getMessage(), e);
+                future.complete(false);
+            }
+        }
+
+    }
+
+}
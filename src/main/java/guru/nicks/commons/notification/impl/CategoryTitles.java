@@ -0,0 +1,45 @@
+package guru.nicks.commons.notification.impl;
+
+import guru.nicks.commons.notification.NotificationCategory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Memoizes per-category titles for transports whose originator is fixed. Only enum categories are cached: they're
+ * immutable and their number is bounded, whereas arbitrary category objects may be neither.
+ *
+ * @param <T> notification category type
+ */
+public class CategoryTitles<T extends NotificationCategory> {
+
+    private final Map<T, String> titles = new ConcurrentHashMap<>();
+    private final Function<T, String> titleFunction;
+
+    /**
+     * Constructor.
+     *
+     * @param titleFunction computes title for the given category (called once per enum category)
+     */
+    public CategoryTitles(Function<T, String> titleFunction) {
+        this.titleFunction = titleFunction;
+    }
+
+    /**
+     * @param category notification category
+     * @return title, cached for enum categories
+     */
+    public String get(T category) {
+        if (!(category instanceof Enum<?>)) {
+            return titleFunction.apply(category);
+        }
+
+        // get() before computeIfAbsent() avoids locking the bin on hits
+        String title = titles.get(category);
+        return (title != null)
+                ? title
+                : titles.computeIfAbsent(category, titleFunction);
+    }
+
+}
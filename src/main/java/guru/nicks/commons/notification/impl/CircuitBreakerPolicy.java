@@ -0,0 +1,49 @@
+package guru.nicks.commons.notification.impl;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker policy: the circuit opens when, within the sliding {@code window}, at least {@code minimumCalls}
+ * calls have been made and at least {@code failureRateThreshold} of them have failed. After {@code openDuration}, a
+ * single probe call is let through: its success closes the circuit, its failure keeps it open for another
+ * {@code openDuration}.
+ *
+ * @param failureRateThreshold failure rate (greater than 0, at most 1) opening the circuit
+ * @param minimumCalls         minimum number of calls within the window before the failure rate is evaluated
+ * @param window               sliding window length
+ * @param openDuration         how long the circuit stays open before a probe call
+ */
+public record CircuitBreakerPolicy(
+
+        double failureRateThreshold,
+        int minimumCalls,
+        Duration window,
+        Duration openDuration) {
+
+    /**
+     * Constructor.
+     *
+     * @throws IllegalArgumentException invalid arguments
+     */
+    public CircuitBreakerPolicy {
+        if (!(failureRateThreshold > 0) || (failureRateThreshold > 1)) {
+            throw new IllegalArgumentException("Circuit breaker failure rate threshold must be within (0, 1]");
+        }
+
+        if (minimumCalls < 1) {
+            throw new IllegalArgumentException("Circuit breaker minimum calls must be positive");
+        }
+
+        if ((window == null) || !window.isPositive() || (openDuration == null) || !openDuration.isPositive()) {
+            throw new IllegalArgumentException("Circuit breaker window and open duration must be positive");
+        }
+    }
+
+    /**
+     * @return policy opening the circuit when half of at least 10 calls within a minute fail, for 30 seconds
+     */
+    public static CircuitBreakerPolicy defaults() {
+        return new CircuitBreakerPolicy(0.5, 10, Duration.ofMinutes(1), Duration.ofSeconds(30));
+    }
+
+}
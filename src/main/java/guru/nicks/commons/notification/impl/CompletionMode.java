@@ -0,0 +1,51 @@
+package guru.nicks.commons.notification.impl;
+
+/**
+ * When {@link NotificationServiceImpl#send} returns. Either way, a notification counts as sent if at least one
+ * transport has succeeded, and transports still sending when {@code send} returns finish in the background (their
+ * results are logged).
+ *
+ * @param quorum number of successful transports to wait for; if it's not reached, {@code send} waits for all the
+ *               transports
+ */
+public record CompletionMode(int quorum) {
+
+    /**
+     * Wait for all the transports.
+     */
+    public static final CompletionMode ALL = new CompletionMode(Integer.MAX_VALUE);
+
+    /**
+     * Return as soon as any transport succeeds.
+     */
+    public static final CompletionMode FIRST_SUCCESS = new CompletionMode(1);
+
+    /**
+     * Constructor.
+     *
+     * @throws IllegalArgumentException invalid arguments
+     */
+    public CompletionMode {
+        if (quorum < 1) {
+            throw new IllegalArgumentException("Completion quorum must be positive");
+        }
+    }
+
+    /**
+     * @param quorum number of successful transports to wait for
+     * @return mode returning as soon as {@code quorum} transports succeed
+     */
+    public static CompletionMode quorum(int quorum) {
+        return new CompletionMode(quorum);
+    }
+
+    @Override
+    public String toString() {
+        return switch (quorum) {
+            case Integer.MAX_VALUE -> "ALL";
+            case 1 -> "FIRST_SUCCESS";
+            default -> "QUORUM(" + quorum + ")";
+        };
+    }
+
+}
@@ -0,0 +1,39 @@
+package guru.nicks.commons.notification.impl;
+
+import java.time.Duration;
+
+/**
+ * Digest mode settings: notifications are buffered per category and sent in bulk, see {@link NotificationDigest}.
+ *
+ * @param interval       how often buffered notifications are flushed
+ * @param flushThreshold number of buffered notifications (per category) which triggers immediate flush
+ * @param capacity       maximum number of buffered notifications per category, excess ones are dropped (and counted)
+ * @param templateName   template rendering a digest
+ */
+public record DigestSettings(
+
+        Duration interval,
+        int flushThreshold,
+        int capacity,
+        String templateName) {
+
+    /**
+     * Constructor.
+     *
+     * @throws IllegalArgumentException invalid arguments
+     */
+    public DigestSettings {
+        if ((interval == null) || !interval.isPositive()) {
+            throw new IllegalArgumentException("Digest interval must be positive");
+        }
+
+        if ((flushThreshold < 1) || (capacity < flushThreshold)) {
+            throw new IllegalArgumentException("Digest flush threshold must be positive and not exceed capacity");
+        }
+
+        if ((templateName == null) || templateName.isBlank()) {
+            throw new IllegalArgumentException("Digest template name must not be blank");
+        }
+    }
+
+}
@@ -1,38 +1,137 @@
 package guru.nicks.commons.notification.impl;
 
 import guru.nicks.commons.notification.service.EmailService;
+import guru.nicks.commons.notification.service.HtmlEmail;
+import guru.nicks.commons.notification.service.TemplatedHtmlEmail;
 import guru.nicks.commons.service.FreemarkerTemplateService;
 
+import jakarta.annotation.Nullable;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 
+import java.util.List;
 import java.util.Map;
 
 /**
- * Renders templates with {@link FreemarkerTemplateService} and sends messages via {@link JavaMailSender}. Subclasses
- * are encouraged to create Spring beans and annotate them with rate limiting and circuit breaking annotations.
+ * Renders templates with {@link FreemarkerTemplateService} (optionally caching the results in
+ * {@link RenderedTemplateCache}) and sends messages via {@link JavaMailSender} - or, if {@link SmtpTransportPool} is
+ * passed, via pooled SMTP connections. Subclasses are encouraged to create Spring beans and annotate them with rate
+ * limiting and circuit breaking annotations.
  */
-@RequiredArgsConstructor
 @Slf4j
 public class EmailServiceImpl implements EmailService {
 
     // DI
     private final JavaMailSender mailSender;
     private final FreemarkerTemplateService templateService;
+    @Nullable
+    private final SmtpTransportPool transportPool;
+    @Nullable
+    private final RenderedTemplateCache renderedTemplateCache;
+
+    /**
+     * Constructor. Each message is sent by {@link JavaMailSender} (which usually means a new SMTP connection).
+     *
+     * @param mailSender      mail sender
+     * @param templateService template service
+     */
+    public EmailServiceImpl(JavaMailSender mailSender, FreemarkerTemplateService templateService) {
+        this(mailSender, templateService, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param mailSender      mail sender (creates messages, and sends them if there's no connection pool)
+     * @param templateService template service
+     * @param transportPool   if not {@code null}, sends messages over pooled SMTP connections
+     */
+    public EmailServiceImpl(JavaMailSender mailSender, FreemarkerTemplateService templateService,
+            @Nullable SmtpTransportPool transportPool) {
+        this(mailSender, templateService, transportPool, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param mailSender            mail sender (creates messages, and sends them if there's no connection pool)
+     * @param templateService       template service
+     * @param transportPool         if not {@code null}, sends messages over pooled SMTP connections
+     * @param renderedTemplateCache if not {@code null}, rendered templates are cached, so identical messages skip
+     *                              template evaluation
+     */
+    public EmailServiceImpl(JavaMailSender mailSender, FreemarkerTemplateService templateService,
+            @Nullable SmtpTransportPool transportPool, @Nullable RenderedTemplateCache renderedTemplateCache) {
+        this.mailSender = mailSender;
+        this.templateService = templateService;
+        this.transportPool = transportPool;
+        this.renderedTemplateCache = renderedTemplateCache;
+    }
 
     @Override
     public void sendHtmlWithTemplate(String from, String to, String subject,
             String templateName, Map<?, ?> templateContext) {
-        String body = templateService.render(templateName, templateContext);
-        sendHtml(from, to, subject, body);
+        sendHtml(from, to, subject, render(templateName, templateContext));
     }
 
     @Override
     public void sendHtml(String from, String to, String subject, String body) {
+        MimeMessage message = createMessage(from, to, subject, body);
+
+        if (transportPool != null) {
+            transportPool.send(List.of(message));
+        } else {
+            mailSender.send(message);
+        }
+    }
+
+    /**
+     * Sends all messages over a single SMTP connection.
+     *
+     * @param emails messages to send
+     */
+    @Override
+    public void sendHtmlBatch(List<HtmlEmail> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+
+        List<MimeMessage> messages = emails.stream()
+                .map(email -> createMessage(email.from(), email.to(), email.subject(), email.body()))
+                .toList();
+
+        if (transportPool != null) {
+            transportPool.send(messages);
+        } else {
+            // JavaMailSender sends all the messages over a single connection
+            mailSender.send(messages.toArray(MimeMessage[]::new));
+        }
+    }
+
+    /**
+     * Renders all templates, then sends all messages over a single SMTP connection.
+     *
+     * @param emails messages to send
+     */
+    @Override
+    public void sendHtmlBatchWithTemplate(List<TemplatedHtmlEmail> emails) {
+        sendHtmlBatch(emails.stream()
+                .map(email -> new HtmlEmail(email.from(), email.to(), email.subject(),
+                        render(email.templateName(), email.templateContext())))
+                .toList());
+    }
+
+    private String render(String templateName, Map<?, ?> templateContext) {
+        return (renderedTemplateCache == null)
+                ? templateService.render(templateName, templateContext)
+                : renderedTemplateCache.getOrRender(templateName, templateContext,
+                        () -> templateService.render(templateName, templateContext));
+    }
+
+    private MimeMessage createMessage(String from, String to, String subject, String body) {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, "utf-8");
 
@@ -54,7 +153,7 @@ public class EmailServiceImpl implements EmailService {
                     + "to='{}', subject='{}'", to, subject);
         }
 
-        mailSender.send(message);
+        return message;
     }
 
 }
@@ -0,0 +1,82 @@
+package guru.nicks.commons.notification.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.togglz.core.Feature;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Feature state cached for a short time, so checking it costs a volatile read rather than a feature store lookup. The
+ * state is re-read when the TTL expires (by the first thread noticing that, the others keep reading the previous state
+ * meanwhile) or on {@link #refresh()}, for example on feature toggle change events.
+ */
+@Slf4j
+public class FeatureSnapshot {
+
+    private final Feature feature;
+    private final Predicate<Feature> featureTester;
+    private final long ttlNanos;
+    private final AtomicLong refreshedAt;
+
+    private volatile boolean active;
+
+    /**
+     * Constructor. Reads the feature state right away.
+     *
+     * @param feature       feature
+     * @param featureTester reads feature state
+     * @param ttl           how long the state is cached
+     * @throws IllegalArgumentException invalid arguments
+     */
+    public FeatureSnapshot(Feature feature, Predicate<Feature> featureTester, Duration ttl) {
+        if ((feature == null) || (featureTester == null)) {
+            throw new IllegalArgumentException("Feature and feature tester must be set");
+        }
+
+        if ((ttl == null) || !ttl.isPositive()) {
+            throw new IllegalArgumentException("Feature state TTL must be positive");
+        }
+
+        this.feature = feature;
+        this.featureTester = featureTester;
+        ttlNanos = ttl.toNanos();
+        refreshedAt = new AtomicLong(System.nanoTime());
+        active = featureTester.test(feature);
+    }
+
+    /**
+     * @return cached feature state, re-read if it's older than the TTL
+     */
+    public boolean isActive() {
+        long refreshed = refreshedAt.get();
+
+        if ((System.nanoTime() - refreshed >= ttlNanos) && refreshedAt.compareAndSet(refreshed, System.nanoTime())) {
+            reload();
+        }
+
+        return active;
+    }
+
+    /**
+     * Re-reads feature state right away.
+     */
+    public void refresh() {
+        refreshedAt.set(System.nanoTime());
+        reload();
+    }
+
+    /**
+     * Keeps the previous state if feature state can't be read - this is called on error paths, which must not fail.
+     */
+    private void reload() {
+        try {
+            active = featureTester.test(feature);
+        } catch (RuntimeException e) {
+            log.warn("Failed to check feature '{}', keeping its previous state: {}", feature.name(), e.getMessage(),
+                    e);
+        }
+    }
+
+}
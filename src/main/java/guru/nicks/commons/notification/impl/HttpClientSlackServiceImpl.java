@@ -0,0 +1,130 @@
+package guru.nicks.commons.notification.impl;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Nullable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Slack client built on {@link HttpClient}: sends are truly asynchronous (no thread is held while waiting for Slack),
+ * and connections are kept alive and multiplexed over HTTP/2 (falling back to HTTP/1.1 if the server doesn't support
+ * it). Share one {@link HttpClient} - such as {@link #createHttpClient()} - between instances to share its connection
+ * pool.
+ * <p>
+ * Errors are reported with the same exception types as {@link LightweightSlackServiceImpl} does (via Spring's
+ * {@code RestTemplate}): {@link RestClientResponseException} for non-2xx responses, {@link ResourceAccessException}
+ * for I/O errors.
+ */
+public class HttpClientSlackServiceImpl extends AbstractLightweightSlackService {
+
+    /**
+     * Default timeout for establishing connections.
+     */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * Default timeout for receiving response.
+     */
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+
+    /**
+     * Constructor.
+     *
+     * @param serviceName    name of this service instance (for logging purposes - the web hook URL must not be
+     *                       revealed because it contains a secret token)
+     * @param webHookUrl     Slack webhook URL for sending messages
+     * @param httpClient     HTTP client (see {@link #createHttpClient()})
+     * @param objectMapper   JSON object mapper for constructing JSON objects sent to Slack
+     * @param batchWindow    if not {@code null}, Markdown messages sent within this window are coalesced into a single
+     *                       Slack message (sent in a background thread)
+     * @param requestTimeout timeout for receiving response, {@code null} means {@link #DEFAULT_REQUEST_TIMEOUT}
+     */
+    @ConstraintArguments
+    public HttpClientSlackServiceImpl(String serviceName, URL webHookUrl, HttpClient httpClient,
+            ObjectMapper objectMapper, @Nullable Duration batchWindow, @Nullable Duration requestTimeout) {
+        super(serviceName, webHookUrl, objectMapper, batchWindow);
+        this.httpClient = checkNotNull(httpClient, _HttpClientSlackServiceImplArgumentsMeta.HTTPCLIENT.name());
+
+        this.requestTimeout = (requestTimeout == null)
+                ? DEFAULT_REQUEST_TIMEOUT
+                : check(requestTimeout, _HttpClientSlackServiceImplArgumentsMeta.REQUESTTIMEOUT.name())
+                        .constraint(timeout -> timeout.isPositive(), "must be positive")
+                        .getValue();
+    }
+
+    /**
+     * Creates HTTP client preferring HTTP/2. The client's internal executor (a cached thread pool) only runs response
+     * callbacks, so a handful of threads serve any number of concurrent requests.
+     *
+     * @return HTTP client
+     */
+    public static HttpClient createHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(DEFAULT_CONNECT_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @Override
+    protected void post(String webHookUrl, byte[] json) {
+        try {
+            postAsync(webHookUrl, json).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw e;
+        }
+    }
+
+    @Override
+    protected CompletableFuture<Void> postAsync(String webHookUrl, byte[] json) {
+        var request = HttpRequest.newBuilder(URI.create(webHookUrl))
+                .timeout(requestTimeout)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json))
+                .build();
+
+        return httpClient
+                .sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, e) -> {
+                    if (e != null) {
+                        Throwable cause = (e instanceof CompletionException) ? e.getCause() : e;
+                        throw new ResourceAccessException("Slack call from '" + getServiceName() + "' failed: "
+                                + cause.getMessage(), (cause instanceof IOException io) ? io : new IOException(cause));
+                    }
+
+                    if ((response.statusCode() < 200) || (response.statusCode() > 299)) {
+                        throw new RestClientResponseException("Slack responded with HTTP " + response.statusCode()
+                                + " to '" + getServiceName() + "'", HttpStatusCode.valueOf(response.statusCode()),
+                                "", null, response.body(), null);
+                    }
+
+                    return null;
+                });
+    }
+
+}
@@ -0,0 +1,163 @@
+package guru.nicks.commons.notification.impl;
+
+import guru.nicks.commons.notification.NotificationCategory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.event.Level;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Publishes {@link NotificationServiceImpl} measurements to Micrometer. Meters are cached, so recording a measurement
+ * costs a map lookup rather than a meter registry lookup.
+ * <p>
+ * Meters (all tagged with {@value #SERVICE_TAG}):
+ * <ul>
+ *     <li>{@code notification.transport.duration} - per-transport latency, tagged with transport, category, level,
+ *         outcome</li>
+ *     <li>{@code notification.dispatch.duration} - fan-out duration, tagged with category and level</li>
+ *     <li>{@code notification.sent} - successes and failures (all transports failed), tagged with category, level,
+ *         outcome</li>
+ *     <li>{@code notification.dropped} - notifications dropped before reaching transports, tagged with category,
+ *         level, reason</li>
+ *     <li>gauges and counters registered by the service: queue, deduplication cache, rate limiters</li>
+ * </ul>
+ * Only enum categories are tagged with their names: there's a bounded number of them. All the other categories are
+ * tagged with {@value #OTHER_CATEGORY} (but with their actual level), otherwise categories created on the fly would
+ * make the number of meters grow without bound.
+ */
+public class MicrometerNotificationMetrics implements NotificationMetrics {
+
+    public static final String SERVICE_TAG = "service";
+
+    /**
+     * Category tag value for non-enum categories.
+     */
+    public static final String OTHER_CATEGORY = "other";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+    private final Tags commonTags;
+
+    private final Map<TransportKey, Timer> transportTimers = new ConcurrentHashMap<>();
+    private final Map<CategoryKey, Timer> dispatchTimers = new ConcurrentHashMap<>();
+    private final Map<CategoryKey, Counter> sentCounters = new ConcurrentHashMap<>();
+    private final Map<CategoryKey, Counter> droppedCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param registry    meter registry
+     * @param serviceName tells apart metrics of different notification services, such as Spring bean name
+     */
+    public MicrometerNotificationMetrics(MeterRegistry registry, String serviceName) {
+        this.registry = requireNonNull(registry, "registry");
+        commonTags = Tags.of(SERVICE_TAG, requireNonNull(serviceName, "serviceName"));
+    }
+
+    @Override
+    public void recordTransport(Class<?> transportClass, NotificationCategory category,
+            TransportResult.Status status, long durationNanos) {
+        var transportKey = new TransportKey(transportClass, categoryTag(category), category.getLogLevel(), status);
+
+        transportTimers.computeIfAbsent(transportKey, key ->
+                        Timer.builder("notification.transport.duration")
+                                .description("Time taken by notification transport")
+                                .tags(categoryTags(key.category(), key.level()))
+                                .tag("transport", key.transportClass().getSimpleName())
+                                .tag("outcome", key.status().name().toLowerCase(Locale.US))
+                                .publishPercentiles(PERCENTILES)
+                                .register(registry))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordDispatch(NotificationCategory category, boolean sent, long durationNanos) {
+        dispatchTimers.computeIfAbsent(categoryKey(category, ""), key ->
+                        Timer.builder("notification.dispatch.duration")
+                                .description("Time taken to send notification via all transports")
+                                .tags(categoryTags(key.category(), key.level()))
+                                .publishPercentiles(PERCENTILES)
+                                .register(registry))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+
+        sentCounters.computeIfAbsent(categoryKey(category, sent ? "sent" : "failed"), key ->
+                        Counter.builder("notification.sent")
+                                .description("Notifications sent via at least one transport, or failed")
+                                .tags(categoryTags(key.category(), key.level()))
+                                .tag("outcome", key.qualifier())
+                                .register(registry))
+                .increment();
+    }
+
+    @Override
+    public void recordDropped(NotificationCategory category, String reason) {
+        droppedCounters.computeIfAbsent(categoryKey(category, reason), key ->
+                        Counter.builder("notification.dropped")
+                                .description("Notifications dropped before reaching transports")
+                                .tags(categoryTags(key.category(), key.level()))
+                                .tag("reason", key.qualifier())
+                                .register(registry))
+                .increment();
+    }
+
+    @Override
+    public <S> void registerGauge(String name, String description, S state, ToDoubleFunction<S> valueFunction) {
+        Gauge.builder(name, state, valueFunction)
+                .description(description)
+                .tags(commonTags)
+                .register(registry);
+    }
+
+    @Override
+    public <S> void registerCounter(String name, String description, S state, ToDoubleFunction<S> valueFunction) {
+        FunctionCounter.builder(name, state, valueFunction)
+                .description(description)
+                .tags(commonTags)
+                .register(registry);
+    }
+
+    private static String categoryTag(NotificationCategory category) {
+        return (category instanceof Enum<?>)
+                ? category.toString()
+                : OTHER_CATEGORY;
+    }
+
+    private static CategoryKey categoryKey(NotificationCategory category, String qualifier) {
+        return new CategoryKey(categoryTag(category), category.getLogLevel(), qualifier);
+    }
+
+    private Tags categoryTags(String category, Level level) {
+        return commonTags.and(
+                "category", category,
+                "level", level.name().toLowerCase(Locale.US));
+    }
+
+    private record TransportKey(
+
+            Class<?> transportClass,
+            String category,
+            Level level,
+            TransportResult.Status status) {
+    }
+
+    private record CategoryKey(
+
+            String category,
+            Level level,
+            String qualifier) {
+    }
+
+}
@@ -0,0 +1,220 @@
+package guru.nicks.commons.notification.impl;
+
+import guru.nicks.commons.notification.NotificationCategory;
+
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Suppresses repeated notifications. The first occurrence of a (category, message, exception type) combination is
+ * forwarded, repeats within the TTL are only counted. Periodically, for each suppressed combination, a single 'repeated
+ * N times in the last M seconds' follow-up is emitted.
+ * <p>
+ * The cache is bounded: when it's full, new combinations are forwarded without being tracked. Expired entries are
+ * evicted by the same periodic task which emits the follow-ups.
+ *
+ * @param <T> notification category type
+ */
+@Slf4j
+public class NotificationDeduplicator<T extends NotificationCategory> implements AutoCloseable {
+
+    /**
+     * How long {@link #close()} waits for the final follow-ups.
+     */
+    private static final Duration DEFAULT_CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+    private final Map<Fingerprint<T>, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final boolean includeExceptionType;
+    private final BiConsumer<T, String> followUpSender;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor.
+     *
+     * @param ttl                  repeats within this period after the first occurrence are suppressed
+     * @param maxEntries           maximum number of tracked combinations
+     * @param includeExceptionType whether exception type is part of the fingerprint
+     * @param reportInterval       how often the 'repeated N times' follow-ups are emitted
+     * @param followUpSender       sends follow-ups (bypassing this deduplicator)
+     * @throws IllegalArgumentException invalid arguments
+     */
+    public NotificationDeduplicator(Duration ttl, int maxEntries, boolean includeExceptionType,
+            Duration reportInterval, BiConsumer<T, String> followUpSender) {
+        if ((ttl == null) || !ttl.isPositive() || (reportInterval == null) || !reportInterval.isPositive()) {
+            throw new IllegalArgumentException("Deduplication TTL and report interval must be positive");
+        }
+
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Deduplication cache size must be positive");
+        }
+
+        ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.includeExceptionType = includeExceptionType;
+        this.followUpSender = followUpSender;
+
+        scheduler = NotificationThreads.newScheduler("notification-dedup");
+        scheduler.scheduleWithFixedDelay(this::reportRepeats,
+                reportInterval.toMillis(), reportInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks if the notification should be forwarded to transports.
+     *
+     * @param category notification category
+     * @param message  message text (before appending exception details)
+     * @param t        exception
+     * @return {@code true} if this is the first occurrence within the TTL (or the cache is full), {@code false} if it's
+     *         a repeat
+     */
+    public boolean tryAcquire(T category, String message, @Nullable Throwable t) {
+        Fingerprint<T> fingerprint = fingerprint(category, message, t);
+        long now = System.nanoTime();
+        Entry entry = entries.get(fingerprint);
+
+        if (entry == null) {
+            if (entries.size() >= maxEntries) {
+                return true;
+            }
+
+            entry = entries.putIfAbsent(fingerprint, new Entry(now));
+
+            if (entry == null) {
+                return true;
+            }
+        }
+
+        long windowStart = entry.windowStart.get();
+
+        // start new window, the repeats of the previous one are still pending to be reported
+        if ((now - windowStart > ttlNanos) && entry.windowStart.compareAndSet(windowStart, now)) {
+            return true;
+        }
+
+        entry.repeatCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Makes the next occurrence of the notification be forwarded, as if the TTL had expired. Called when the
+     * notification forwarded by {@link #tryAcquire(NotificationCategory, String, Throwable)} hasn't been sent after
+     * all (for example, due to rate limiting). Pending repeats, if any, are still reported.
+     *
+     * @param category notification category
+     * @param message  message text (before appending exception details)
+     * @param t        exception
+     */
+    public void release(T category, String message, @Nullable Throwable t) {
+        Fingerprint<T> fingerprint = fingerprint(category, message, t);
+        Entry entry = entries.get(fingerprint);
+
+        if (entry != null) {
+            entry.windowStart.set(System.nanoTime() - ttlNanos - 1);
+        }
+    }
+
+    /**
+     * @return number of tracked combinations
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Same as {@link #close(Duration)}, waiting no longer than 5 seconds.
+     */
+    @Override
+    public void close() {
+        close(DEFAULT_CLOSE_TIMEOUT);
+    }
+
+    /**
+     * Emits pending follow-ups and stops the periodic task. The final report runs in the reporting thread, after the
+     * periodic one in progress (if any), so no follow-up is emitted twice or lost.
+     *
+     * @param timeout how long to wait for the final report
+     */
+    public void close(Duration timeout) {
+        try {
+            scheduler.execute(this::reportRepeats);
+        } catch (RejectedExecutionException e) {
+            // closed already
+            return;
+        }
+
+        // cancels the periodic task, but not the final report
+        scheduler.shutdown();
+
+        try {
+            if (!scheduler.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Repeated notification follow-ups still being sent after {}, interrupting", timeout);
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scheduler.shutdownNow();
+        }
+    }
+
+    private Fingerprint<T> fingerprint(T category, String message, @Nullable Throwable t) {
+        return new Fingerprint<>(category, message, (includeExceptionType && (t != null)) ? t.getClass() : null);
+    }
+
+    private void reportRepeats() {
+        long now = System.nanoTime();
+
+        entries.forEach((fingerprint, entry) -> {
+            int repeatCount = entry.repeatCount.getAndSet(0);
+
+            if (repeatCount > 0) {
+                long seconds = TimeUnit.NANOSECONDS.toSeconds(now - entry.lastReportedAt);
+                entry.lastReportedAt = now;
+
+                try {
+                    followUpSender.accept(fingerprint.category(), "Repeated " + repeatCount + " times in the last "
+                            + seconds + " seconds: " + fingerprint.message());
+                } catch (RuntimeException e) {
+                    log.error("Failed to send repeated notification follow-up: {}", e.getMessage(), e);
+                }
+            } else if (now - entry.windowStart.get() > ttlNanos) {
+                entries.remove(fingerprint, entry);
+            }
+        });
+    }
+
+    private record Fingerprint<T>(
+
+            T category,
+            String message,
+            @Nullable Class<?> exceptionType) {
+    }
+
+    private static final class Entry {
+
+        private final AtomicLong windowStart;
+        private final AtomicInteger repeatCount = new AtomicInteger();
+        /**
+         * Accessed by the reporting thread only.
+         */
+        private long lastReportedAt;
+
+        private Entry(long now) {
+            windowStart = new AtomicLong(now);
+            lastReportedAt = now;
+        }
+
+    }
+
+}
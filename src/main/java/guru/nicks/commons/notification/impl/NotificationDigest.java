@@ -0,0 +1,171 @@
+package guru.nicks.commons.notification.impl;
+
+import guru.nicks.commons.notification.NotificationCategory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.event.Level;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Buffers notifications per category (and therefore per log level) and passes them to the flusher in bulk:
+ * periodically, or right away once the buffer reaches the flush threshold or an {@link Level#ERROR ERROR}-level
+ * notification arrives.
+ * <p>
+ * Buffers are bounded: notifications exceeding the capacity are dropped and reported in the next digest. If the flusher
+ * fails, the digest is put back into the buffer (within its capacity) to be retried on the next flush.
+ *
+ * @param <T> notification category type
+ */
+@Slf4j
+public class NotificationDigest<T extends NotificationCategory> implements AutoCloseable {
+
+    private final Map<T, Buffer> buffers = new ConcurrentHashMap<>();
+    private final int flushThreshold;
+    private final int capacity;
+    private final BiConsumer<T, Digest> flusher;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor.
+     *
+     * @param settings digest settings
+     * @param flusher  sends digests, may throw exceptions
+     */
+    public NotificationDigest(DigestSettings settings, BiConsumer<T, Digest> flusher) {
+        flushThreshold = settings.flushThreshold();
+        capacity = settings.capacity();
+        this.flusher = flusher;
+
+        scheduler = NotificationThreads.newScheduler("notification-digest");
+        scheduler.scheduleWithFixedDelay(this::flushAll,
+                settings.interval().toMillis(), settings.interval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffers notification, flushes the buffer in the caller thread if needed. Never throws flusher exceptions.
+     *
+     * @param category notification category
+     * @param message  message text
+     * @param context  message context
+     */
+    public void add(T category, String message, Map<String, String> context) {
+        Buffer buffer = buffers.computeIfAbsent(category, key -> new Buffer());
+        Digest digest;
+
+        synchronized (buffer) {
+            if (buffer.messages.size() < capacity) {
+                buffer.messages.add(new Message(Instant.now(), message, context));
+            } else {
+                buffer.droppedCount++;
+            }
+
+            if ((buffer.messages.size() < flushThreshold) && (category.getLogLevel() != Level.ERROR)) {
+                return;
+            }
+
+            digest = buffer.drain();
+        }
+
+        flush(category, buffer, digest);
+    }
+
+    /**
+     * Stops the periodic task and flushes all the buffers.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        flushAll();
+    }
+
+    private void flushAll() {
+        buffers.forEach((category, buffer) -> {
+            Digest digest;
+
+            synchronized (buffer) {
+                if (buffer.messages.isEmpty() && (buffer.droppedCount == 0)) {
+                    return;
+                }
+
+                digest = buffer.drain();
+            }
+
+            flush(category, buffer, digest);
+        });
+    }
+
+    private void flush(T category, Buffer buffer, Digest digest) {
+        try {
+            flusher.accept(category, digest);
+        } catch (RuntimeException e) {
+            log.error("Failed to send notification digest ({} messages), will retry: {}",
+                    digest.messages().size(), e.getMessage(), e);
+            buffer.restore(digest, capacity);
+        }
+    }
+
+    /**
+     * Buffered notification.
+     *
+     * @param timestamp when the notification was buffered
+     * @param message   message text
+     * @param context   message context
+     */
+    public record Message(
+
+            Instant timestamp,
+            String message,
+            Map<String, String> context) {
+    }
+
+    /**
+     * Notifications flushed together.
+     *
+     * @param messages     notifications, oldest first
+     * @param droppedCount number of notifications dropped due to buffer overflow since the previous digest
+     */
+    public record Digest(
+
+            List<Message> messages,
+            int droppedCount) {
+    }
+
+    /**
+     * Guarded by itself.
+     */
+    private static final class Buffer {
+
+        private List<Message> messages = new ArrayList<>();
+        private int droppedCount;
+
+        private Digest drain() {
+            var digest = new Digest(messages, droppedCount);
+            messages = new ArrayList<>();
+            droppedCount = 0;
+            return digest;
+        }
+
+        /**
+         * Puts digest back in front of the notifications buffered since it was drained. If the result exceeds the
+         * capacity, the oldest notifications are dropped.
+         */
+        private synchronized void restore(Digest digest, int capacity) {
+            List<Message> restored = new ArrayList<>(digest.messages());
+            restored.addAll(messages);
+            int excess = Math.max(0, restored.size() - capacity);
+
+            messages = new ArrayList<>(restored.subList(excess, restored.size()));
+            droppedCount += digest.droppedCount() + excess;
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+package guru.nicks.commons.notification.impl;
+
+import guru.nicks.commons.notification.NotificationCategory;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Receives {@link NotificationServiceImpl} measurements. All methods do nothing by default.
+ *
+ * @see MicrometerNotificationMetrics
+ */
+public interface NotificationMetrics {
+
+    /**
+     * Discards all measurements.
+     */
+    NotificationMetrics NOOP = new NotificationMetrics() {
+    };
+
+    /**
+     * Records outcome of sending notification via a single transport.
+     *
+     * @param transportClass transport class (unwrapped from proxies)
+     * @param category       notification category
+     * @param status         outcome
+     * @param durationNanos  how long the transport took
+     */
+    default void recordTransport(Class<?> transportClass, NotificationCategory category,
+            TransportResult.Status status, long durationNanos) {
+    }
+
+    /**
+     * Records outcome of sending notification via all the transports.
+     *
+     * @param category      notification category
+     * @param sent          whether at least one transport succeeded
+     * @param durationNanos fan-out duration
+     */
+    default void recordDispatch(NotificationCategory category, boolean sent, long durationNanos) {
+    }
+
+    /**
+     * Records notification dropped before reaching transports.
+     *
+     * @param category notification category
+     * @param reason   why it was dropped, such as 'duplicate'
+     */
+    default void recordDropped(NotificationCategory category, String reason) {
+    }
+
+    /**
+     * Registers value which can go up and down, such as queue size.
+     *
+     * @param name          metric name
+     * @param description   metric description
+     * @param state         object the value is obtained from
+     * @param valueFunction obtains the value
+     * @param <S>           state type
+     */
+    default <S> void registerGauge(String name, String description, S state, ToDoubleFunction<S> valueFunction) {
+    }
+
+    /**
+     * Registers value which only goes up, such as number of dropped notifications.
+     *
+     * @param name          metric name
+     * @param description   metric description
+     * @param state         object the value is obtained from
+     * @param valueFunction obtains the value
+     * @param <S>           state type
+     */
+    default <S> void registerCounter(String name, String description, S state, ToDoubleFunction<S> valueFunction) {
+    }
+
+}
@@ -0,0 +1,542 @@
+package guru.nicks.commons.notification.impl;
+
+import guru.nicks.commons.notification.NotificationCategory;
+
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable write-ahead log of notifications. Each notification is appended before being dispatched, then acknowledged
+ * by each transport which has delivered it. Notifications not acknowledged by all their transports are handed out by
+ * {@link #claimPending()} for replay - including those left by a previous (possibly crashed) process.
+ * <p>
+ * Storage is a sequence of append-only, memory-mapped segment files. Each record is framed as
+ * <code>[payload length][CRC32 of payload][payload]</code>; the length is written last, so a torn write (or a corrupt
+ * record) ends the segment on recovery. Segments are deleted oldest first, once all of their notifications are fully
+ * acknowledged. Acknowledgements always land in the same or a newer segment than their notifications, therefore
+ * deleting from the head never resurrects acknowledged notifications.
+ * <p>
+ * Writes go to the OS page cache, so they survive process crashes; segments are flushed to disk on roll-over and on
+ * {@link #close()}.
+ * <p>
+ * Message context values are stored (and replayed) as strings.
+ */
+@Slf4j
+public class NotificationOutbox implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "outbox-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    /**
+     * Payload length and CRC32.
+     */
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    private static final byte ENTRY_RECORD = 1;
+    private static final byte ACK_RECORD = 2;
+
+    private final Path directory;
+    private final int segmentSize;
+
+    /**
+     * Oldest first, the last one is being written to. All mutable state is guarded by {@code this}.
+     */
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    /**
+     * In the order of appending.
+     */
+    private final Map<Long, PendingEntry> pendingEntries = new LinkedHashMap<>();
+    private MappedByteBuffer activeBuffer;
+    private long nextEntryId = 1;
+    private boolean closed;
+
+    /**
+     * Constructor. Recovers notifications left unacknowledged by the previous process.
+     *
+     * @param directory   directory for segment files (created if missing), must not be shared with other outboxes
+     * @param segmentSize segment file size, in bytes - each notification must fit into a single segment
+     * @throws IllegalArgumentException invalid arguments
+     * @throws UncheckedIOException     I/O error
+     */
+    public NotificationOutbox(Path directory, int segmentSize) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Outbox directory must be set");
+        }
+
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("Outbox segment size must be at least 1 KiB");
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open notification outbox in " + directory, e);
+        }
+
+        log.info("Notification outbox opened in {}: {} segment(s), {} pending notification(s)",
+                directory, segments.size(), pendingEntries.size());
+    }
+
+    /**
+     * Creates category key to be stored in the outbox.
+     *
+     * @param category category
+     * @return {@link Enum#name()} for enums, {@link Object#toString()} for other categories
+     */
+    public static String categoryKey(NotificationCategory category) {
+        return (category instanceof Enum<?> enumCategory)
+                ? enumCategory.name()
+                : category.toString();
+    }
+
+    /**
+     * Durably stores notification. It's considered in flight (i.e. not handed out by {@link #claimPending()}) until
+     * {@link #acknowledge(long, Collection)} is called.
+     *
+     * @param categoryKey    category key, see {@link #categoryKey(NotificationCategory)}
+     * @param message        message
+     * @param messageContext message context
+     * @param transportKeys  keys of transports expected to acknowledge the notification
+     * @return notification ID
+     * @throws IllegalArgumentException notification doesn't fit into a segment
+     * @throws IllegalStateException    outbox has been closed
+     * @throws UncheckedIOException     I/O error
+     */
+    public synchronized long append(String categoryKey, @Nullable String message,
+            @Nullable Map<String, ?> messageContext, Collection<String> transportKeys) {
+        checkOpen();
+
+        Map<String, String> context = new LinkedHashMap<>();
+        if (messageContext != null) {
+            messageContext.forEach((key, value) -> context.put(key, Objects.toString(value, null)));
+        }
+
+        long id = nextEntryId;
+        Segment segment = write(encodeEntry(id, categoryKey, message, context, transportKeys));
+        nextEntryId++;
+
+        var entry = new PendingEntry(id, categoryKey, message, context, new LinkedHashSet<>(transportKeys), segment);
+        entry.inFlight = true;
+        pendingEntries.put(id, entry);
+        segment.pendingCount++;
+        return id;
+    }
+
+    /**
+     * Records delivery by the given transports and ends the in-flight state of the notification. Segments left with
+     * fully acknowledged notifications only are deleted.
+     *
+     * @param entryId       notification ID
+     * @param transportKeys transports which have delivered the notification (maybe none)
+     * @throws UncheckedIOException I/O error
+     */
+    public synchronized void acknowledge(long entryId, Collection<String> transportKeys) {
+        PendingEntry entry = pendingEntries.get(entryId);
+
+        if (entry == null) {
+            return;
+        }
+
+        entry.inFlight = false;
+
+        // if closed, the notification remains pending and will be replayed by the next process
+        if (transportKeys.isEmpty() || closed) {
+            return;
+        }
+
+        write(encodeAck(entryId, transportKeys));
+        applyAck(entryId, transportKeys);
+        compact();
+    }
+
+    /**
+     * Hands out pending notifications not being dispatched or replayed at the moment. Each of them must be passed to
+     * {@link #acknowledge(long, Collection)} afterwards, otherwise it won't be handed out again.
+     *
+     * @return notifications to replay
+     */
+    public synchronized List<Entry> claimPending() {
+        var entries = new ArrayList<Entry>();
+
+        for (PendingEntry pendingEntry : pendingEntries.values()) {
+            if (!pendingEntry.inFlight) {
+                pendingEntry.inFlight = true;
+                entries.add(new Entry(pendingEntry.id, pendingEntry.categoryKey, pendingEntry.message,
+                        pendingEntry.context, Set.copyOf(pendingEntry.remainingTransports)));
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * @return number of notifications not acknowledged by all their transports
+     */
+    public synchronized int getPendingCount() {
+        return pendingEntries.size();
+    }
+
+    /**
+     * Flushes the active segment to disk. Further appends are rejected, acknowledgements are ignored.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        activeBuffer.force();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Notification outbox has been closed");
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            // file names are zero-padded, so lexicographic order is the order of creation
+            paths = files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        if (paths.isEmpty()) {
+            openSegment(1);
+            return;
+        }
+
+        int writePosition = 0;
+
+        for (Path path : paths) {
+            var segment = new Segment(parseSequence(path), path);
+            segments.addLast(segment);
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                writePosition = readSegment(segment, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        // continue writing to the last segment, wiping whatever follows its last valid record (a torn write)
+        Segment lastSegment = segments.getLast();
+        try (FileChannel channel = FileChannel.open(lastSegment.path,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            activeBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), segmentSize));
+        }
+
+        for (int i = writePosition; i < activeBuffer.limit(); i++) {
+            activeBuffer.put(i, (byte) 0);
+        }
+
+        activeBuffer.position(writePosition);
+        compact();
+    }
+
+    /**
+     * @return position after the last valid record
+     */
+    private int readSegment(Segment segment, ByteBuffer buffer) {
+        var crc = new CRC32();
+        int position = 0;
+
+        while (position + FRAME_HEADER_SIZE <= buffer.limit()) {
+            int length = buffer.getInt(position);
+
+            // zero length means end of data
+            if ((length <= 0) || (length > buffer.limit() - position - FRAME_HEADER_SIZE)) {
+                break;
+            }
+
+            ByteBuffer payload = buffer.slice(position + FRAME_HEADER_SIZE, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+
+            if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+                log.warn("Notification outbox segment {} is corrupt at offset {}, ignoring the rest of it",
+                        segment.path, position);
+                break;
+            }
+
+            applyRecord(segment, payload);
+            position += FRAME_HEADER_SIZE + length;
+        }
+
+        return position;
+    }
+
+    private void applyRecord(Segment segment, ByteBuffer payload) {
+        byte type = payload.get();
+        long id = payload.getLong();
+
+        switch (type) {
+            case ENTRY_RECORD -> {
+                String categoryKey = readString(payload);
+                String message = readString(payload);
+
+                int contextSize = payload.getInt();
+                Map<String, String> context = new LinkedHashMap<>();
+                for (int i = 0; i < contextSize; i++) {
+                    context.put(readString(payload), readString(payload));
+                }
+
+                var entry = new PendingEntry(id, categoryKey, message, context,
+                        new LinkedHashSet<>(readStrings(payload)), segment);
+                pendingEntries.put(id, entry);
+                segment.pendingCount++;
+                nextEntryId = Math.max(nextEntryId, id + 1);
+            }
+
+            case ACK_RECORD -> applyAck(id, readStrings(payload));
+
+            default -> log.warn("Unknown notification outbox record type {} in {}", type, segment.path);
+        }
+    }
+
+    private void applyAck(long entryId, Collection<String> transportKeys) {
+        PendingEntry entry = pendingEntries.get(entryId);
+
+        if (entry == null) {
+            return;
+        }
+
+        entry.remainingTransports.removeAll(transportKeys);
+
+        if (entry.remainingTransports.isEmpty()) {
+            pendingEntries.remove(entryId);
+            entry.segment.pendingCount--;
+        }
+    }
+
+    /**
+     * Deletes the oldest segments (but never the active one) as long as they have no pending notifications.
+     */
+    private void compact() {
+        while ((segments.size() > 1) && (segments.getFirst().pendingCount == 0)) {
+            Segment segment = segments.removeFirst();
+
+            try {
+                Files.deleteIfExists(segment.path);
+                log.debug("Notification outbox segment deleted: {}", segment.path);
+            } catch (IOException e) {
+                log.warn("Failed to delete notification outbox segment {}: {}", segment.path, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Writes record to the active segment, rolling over to a new one if needed.
+     *
+     * @return segment the record has been written to
+     */
+    private Segment write(byte[] payload) {
+        int frameSize = FRAME_HEADER_SIZE + payload.length;
+
+        if (frameSize > segmentSize) {
+            throw new IllegalArgumentException("Notification doesn't fit into outbox segment: " + frameSize + " bytes");
+        }
+
+        if (activeBuffer.remaining() < frameSize) {
+            activeBuffer.force();
+            openSegment(segments.getLast().sequence + 1);
+        }
+
+        var crc = new CRC32();
+        crc.update(payload);
+        int position = activeBuffer.position();
+
+        // length goes last: until it's written, the record doesn't exist
+        activeBuffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+        activeBuffer.put(position + FRAME_HEADER_SIZE, payload);
+        activeBuffer.putInt(position, payload.length);
+        activeBuffer.position(position + frameSize);
+
+        return segments.getLast();
+    }
+
+    private void openSegment(long sequence) {
+        Path path = directory.resolve(SEGMENT_PREFIX + String.format("%019d", sequence) + SEGMENT_SUFFIX);
+
+        // the mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            activeBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create notification outbox segment " + path, e);
+        }
+
+        segments.addLast(new Segment(sequence, path));
+    }
+
+    private static long parseSequence(Path path) {
+        String fileName = path.getFileName().toString();
+        return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] encodeEntry(long id, String categoryKey, @Nullable String message,
+            Map<String, String> context, Collection<String> transportKeys) {
+        var out = new ByteArrayOutputStream(256);
+        out.write(ENTRY_RECORD);
+        writeLong(out, id);
+        writeString(out, categoryKey);
+        writeString(out, message);
+
+        writeInt(out, context.size());
+        context.forEach((key, value) -> {
+            writeString(out, key);
+            writeString(out, value);
+        });
+
+        writeStrings(out, transportKeys);
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeAck(long id, Collection<String> transportKeys) {
+        var out = new ByteArrayOutputStream(64);
+        out.write(ACK_RECORD);
+        writeLong(out, id);
+        writeStrings(out, transportKeys);
+        return out.toByteArray();
+    }
+
+    private static void writeStrings(ByteArrayOutputStream out, Collection<String> values) {
+        writeInt(out, values.size());
+        values.forEach(value -> writeString(out, value));
+    }
+
+    /**
+     * Writes length (-1 for {@code null}) followed by UTF-8 bytes.
+     */
+    private static void writeString(ByteArrayOutputStream out, @Nullable String value) {
+        if (value == null) {
+            writeInt(out, -1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(value).array());
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        out.writeBytes(ByteBuffer.allocate(Long.BYTES).putLong(value).array());
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<String> values = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            values.add(readString(buffer));
+        }
+
+        return Collections.unmodifiableList(values);
+    }
+
+    @Nullable
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Notification to be replayed.
+     *
+     * @param id                  notification ID
+     * @param categoryKey         category key, see {@link #categoryKey(NotificationCategory)}
+     * @param message             message
+     * @param context             message context, values converted to strings
+     * @param remainingTransports keys of transports which haven't acknowledged the notification yet
+     */
+    public record Entry(
+
+            long id,
+            String categoryKey,
+            @Nullable String message,
+            Map<String, String> context,
+            Set<String> remainingTransports) {
+    }
+
+    private static final class Segment {
+
+        private final long sequence;
+        private final Path path;
+        /**
+         * Number of notifications in this segment not acknowledged by all their transports.
+         */
+        private int pendingCount;
+
+        private Segment(long sequence, Path path) {
+            this.sequence = sequence;
+            this.path = path;
+        }
+
+    }
+
+    private static final class PendingEntry {
+
+        private final long id;
+        private final String categoryKey;
+        @Nullable
+        private final String message;
+        private final Map<String, String> context;
+        private final Set<String> remainingTransports;
+        private final Segment segment;
+        private boolean inFlight;
+
+        private PendingEntry(long id, String categoryKey, @Nullable String message, Map<String, String> context,
+                Set<String> remainingTransports, Segment segment) {
+            this.id = id;
+            this.categoryKey = categoryKey;
+            this.message = message;
+            this.context = Collections.unmodifiableMap(context);
+            this.remainingTransports = remainingTransports;
+            this.segment = segment;
+        }
+
+    }
+
+}
@@ -1,35 +1,146 @@
 package guru.nicks.commons.notification.impl;
 
+import guru.nicks.commons.notification.Notification;
 import guru.nicks.commons.notification.NotificationCategory;
 import guru.nicks.commons.notification.NotificationTransport;
 import guru.nicks.commons.notification.service.NotificationService;
-import guru.nicks.commons.utils.FutureUtils;
 import guru.nicks.commons.utils.TransformUtils;
 
+import jakarta.annotation.Nullable;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
+import org.slf4j.event.Level;
 import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.togglz.core.Feature;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Sends notifications via the transports in parallel, each transport running on its own executor (see
+ * {@link TransportExecutorStrategy}) behind its own bulkhead. Which transports receive which categories is decided by a
+ * routing table computed at construction (see {@link NotificationServiceSettings#getLevelRoutes()}). Asynchronous
+ * notifications are queued and sent by background threads. Optionally, repeated notifications are suppressed by
+ * {@link NotificationDeduplicator}, and excess ones are dropped by per-category and per-transport
+ * {@link TokenBucketRateLimiter}s - before any formatting takes place. Suppressed repeats count as sent ({@code send}
+ * returns {@code true}): an identical notification has been sent recently. A notification dropped by its category
+ * rate limit doesn't count as the first occurrence, so its repeats are not suppressed. Transports whose
+ * {@link TransportCircuitBreaker} is open are skipped without being called, failed sends are retried according to
+ * {@link RetryPolicy} (on a scheduler, without sleeping). Transports overrunning their timeouts or the notification
+ * deadline are interrupted and reported as {@code TIMEOUT}. Being {@link AutoCloseable}, Spring beans of this class
+ * drain the queue on application shutdown.
+ * <p>
+ * Optionally, notifications are stored in a durable {@link NotificationOutbox} before being dispatched. Those not
+ * delivered by some transports (including those left by a crashed process) are replayed to these transports only.
+ * Transports not {@link NotificationTransport#confirmsDelivery() confirming delivery} are not covered by the outbox.
+ * Replaying begins on {@link #start()}, which is called automatically for Spring singleton beans once all the
+ * singletons (and their post-processors, such as the one binding metrics) have been initialized.
+ * <p>
+ * Notifications sent in bulk (see {@link #sendAll(Collection)}) reach each transport in a single
+ * {@link NotificationTransport#sendBatch(List)} call.
+ * <p>
+ * Measurements are reported to {@link NotificationMetrics} passed to {@link #bindMetrics(NotificationMetrics)}, which
+ * happens automatically for Spring beans if a Micrometer {@code MeterRegistry} bean exists.
+ *
+ * @param <T> notification category type
+ */
 @Slf4j
-public class NotificationServiceImpl<T extends NotificationCategory> implements NotificationService<T> {
+public class NotificationServiceImpl<T extends NotificationCategory>
+        implements NotificationService<T>, AutoCloseable, SmartInitializingSingleton {
 
-    private final List<? extends NotificationTransport<T>> transports;
+    /**
+     * {@code deadlineAt} value meaning there's no deadline.
+     */
+    private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    /**
+     * Runs retries of transports called in the caller thread, see {@link #retryExecutor(TransportHandle)}.
+     */
+    private static final Executor RETRY_EXECUTOR = runnable -> Thread.ofVirtual()
+            .name("notification-retry")
+            .start(runnable);
+
+    private final TransportHandle<T>[] transports;
     private final Predicate<Feature> featureTester;
+    private final Duration featureStateTtl;
+    private final ThrowableFormatter throwableFormatter;
+    private final Map<Feature, FeatureSnapshot> featureSnapshots = new ConcurrentHashMap<>();
+    private final AsyncNotificationQueue asyncQueue;
+    private final CompletionMode completionMode;
+    @Nullable
+    private final NotificationDeduplicator<T> deduplicator;
 
+    private final Map<NotificationCategory, TokenBucketRateLimiter> categoryRateLimiters = new ConcurrentHashMap<>();
+    @Nullable
+    private final RateLimit defaultCategoryRateLimit;
+
+    @Nullable
+    private final NotificationOutbox outbox;
+    @Nullable
+    private final Function<String, ? extends NotificationCategory> outboxCategoryResolver;
+    @Nullable
+    private final ScheduledExecutorService outboxScheduler;
+    @Nullable
+    private final Duration outboxReplayInterval;
     /**
-     * Constructor.
+     * Guards {@link #start()} against {@link #close()}.
+     */
+    private final Object lifecycleLock = new Object();
+    private boolean started;
+    private boolean closed;
+    private final List<String> transportKeys;
+    /**
+     * Indexed by {@link Level#ordinal()}.
+     */
+    private final Route<T>[] levelRoutes;
+    /**
+     * Overrides {@link #levelRoutes}.
+     */
+    private final Map<NotificationCategory, Route<T>> categoryRoutes;
+    @Nullable
+    private final Duration defaultDeadline;
+    /**
+     * Runs retries and timeouts.
+     */
+    private final ScheduledExecutorService scheduler;
+    private final TransportExecutorStrategy transportExecutorStrategy;
+    /**
+     * How long {@link #close()} waits for pending retries before releasing transport executors.
+     */
+    private final Duration shutdownTimeout;
+    private final LongAdder retryCount = new LongAdder();
+
+    private volatile NotificationMetrics metrics = NotificationMetrics.NOOP;
+
+    /**
+     * Constructor. Uses default settings.
      *
      * @param transports    notification transports
      * @param featureTester feature tester predicate
@@ -37,79 +148,1438 @@ public class NotificationServiceImpl<T extends NotificationCategory> implements
      */
     public NotificationServiceImpl(Collection<? extends NotificationTransport<T>> transports,
             Predicate<Feature> featureTester) {
+        this(transports, featureTester, NotificationServiceSettings.builder().build());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param transports    notification transports
+     * @param featureTester feature tester predicate
+     * @param settings      service settings
+     * @throws IllegalArgumentException no feature tester or no notification transports, or invalid settings
+     */
+    public NotificationServiceImpl(Collection<? extends NotificationTransport<T>> transports,
+            Predicate<Feature> featureTester, NotificationServiceSettings settings) {
         this.featureTester = requireNonNull(featureTester, "featureTester");
+        requireNonNull(settings, "settings");
 
         if (CollectionUtils.isEmpty(transports)) {
             throw new IllegalArgumentException("No notification transports defined");
         }
 
-        // immutability + preserved order
-        this.transports = transports.stream()
+        // preserved order
+        List<? extends NotificationTransport<T>> distinctTransports = transports.stream()
                 .distinct()
                 .toList();
         // unwrap class names beneath JdkProxy instances
         log.info("Notification transports: {}",
-                TransformUtils.toList(this.transports, AopUtils::getTargetClass, Class::getName));
+                TransformUtils.toList(distinctTransports, AopUtils::getTargetClass, Class::getName));
+
+        @SuppressWarnings("unchecked")
+        TransportHandle<T>[] handles = new TransportHandle[distinctTransports.size()];
+        // transports of the same class are told apart by their order
+        Map<Class<?>, Integer> classCounts = new HashMap<>();
+
+        for (int i = 0; i < handles.length; i++) {
+            NotificationTransport<T> transport = distinctTransports.get(i);
+            Class<?> transportClass = AopUtils.getTargetClass(transport);
+            int ordinal = classCounts.merge(transportClass, 1, Integer::sum) - 1;
+            handles[i] = createTransportHandle(transport, transportClass, transportClass.getName() + "#" + ordinal,
+                    settings);
+        }
+
+        this.transports = handles;
+        transportKeys = Arrays.stream(handles)
+                .map(TransportHandle::key)
+                .toList();
+
+        @SuppressWarnings("unchecked")
+        Route<T>[] routes = new Route[Level.values().length];
+
+        for (Level level : Level.values()) {
+            routes[level.ordinal()] = createRoute(level, settings.getLevelRoutes().get(level));
+        }
+
+        levelRoutes = routes;
+        categoryRoutes = new HashMap<>();
+        settings.getCategoryRoutes().forEach((category, transportClasses) ->
+                categoryRoutes.put(category, createRoute(category.getLogLevel(), transportClasses)));
+
+        // the thread is started on first use
+        scheduler = NotificationThreads.newScheduler("notification-scheduler");
+        transportExecutorStrategy = settings.getTransportExecutorStrategy();
+        shutdownTimeout = settings.getAsyncShutdownTimeout();
+
+        completionMode = requireNonNull(settings.getCompletionMode(), "completionMode");
+        featureStateTtl = settings.getFeatureStateTtl();
+
+        if ((featureStateTtl == null) || !featureStateTtl.isPositive()) {
+            throw new IllegalArgumentException("Feature state TTL must be positive");
+        }
+
+        throwableFormatter = requireNonNull(settings.getThrowableFormatter(), "throwableFormatter");
+        defaultDeadline = settings.getDefaultDeadline();
+
+        if ((defaultDeadline != null) && !defaultDeadline.isPositive()) {
+            throw new IllegalArgumentException("Default deadline must be positive");
+        }
+
+        asyncQueue = new AsyncNotificationQueue(settings.getAsyncQueueCapacity(), settings.getAsyncWorkerCount(),
+                settings.getAsyncOverflowPolicy(), settings.getAsyncShutdownTimeout());
+
+        // follow-ups bypass deduplication, otherwise they'd be suppressed as well
+        deduplicator = (settings.getDeduplicationTtl() == null)
+                ? null
+                : new NotificationDeduplicator<>(settings.getDeduplicationTtl(),
+                        settings.getDeduplicationMaxEntries(), settings.isDeduplicationIncludesExceptionType(),
+                        settings.getDeduplicationReportInterval(),
+                        (category, message) -> dispatch(route(category), category, () -> message, Map::of,
+                                defaultDeadline));
+
+        settings.getCategoryRateLimits().forEach((category, rateLimit) ->
+                categoryRateLimiters.put(category, new TokenBucketRateLimiter(rateLimit)));
+        defaultCategoryRateLimit = settings.getDefaultCategoryRateLimit();
+
+        if (settings.getOutboxDirectory() == null) {
+            outbox = null;
+            outboxCategoryResolver = null;
+            outboxScheduler = null;
+            outboxReplayInterval = null;
+            return;
+        }
+
+        if (settings.getOutboxCategoryResolver() == null) {
+            throw new IllegalArgumentException("Outbox category resolver must be set");
+        }
+
+        if ((settings.getOutboxReplayInterval() == null) || !settings.getOutboxReplayInterval().isPositive()) {
+            throw new IllegalArgumentException("Outbox replay interval must be positive");
+        }
+
+        outbox = new NotificationOutbox(settings.getOutboxDirectory(), settings.getOutboxSegmentSize());
+        outboxCategoryResolver = settings.getOutboxCategoryResolver();
+
+        // the thread is started on first use, replaying begins on start()
+        outboxScheduler = NotificationThreads.newScheduler("notification-outbox");
+        outboxReplayInterval = settings.getOutboxReplayInterval();
+    }
+
+    /**
+     * Begins replaying the outbox, if any: right away (which picks up notifications left by the previous process), and
+     * then periodically. Does nothing if called again or after {@link #close()}.
+     */
+    public void start() {
+        synchronized (lifecycleLock) {
+            if (started || closed) {
+                return;
+            }
+
+            started = true;
+
+            if (outbox != null) {
+                outboxScheduler.scheduleWithFixedDelay(this::replayOutbox,
+                        0, outboxReplayInterval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Calls {@link #start()}.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        start();
+    }
+
+    /**
+     * Starts reporting measurements to the given metrics, registers gauges for the queue, deduplication cache, and rate
+     * limiters.
+     *
+     * @param metrics metrics
+     */
+    public void bindMetrics(NotificationMetrics metrics) {
+        this.metrics = requireNonNull(metrics, "metrics");
+
+        metrics.registerGauge("notification.async.queue.size", "Notifications waiting to be sent asynchronously",
+                asyncQueue, AsyncNotificationQueue::size);
+        metrics.registerCounter("notification.async.queue.dropped", "Notifications dropped due to queue overflow",
+                asyncQueue, AsyncNotificationQueue::getDroppedCount);
+
+        if (deduplicator != null) {
+            metrics.registerGauge("notification.dedup.entries", "Notifications tracked for deduplication",
+                    deduplicator, NotificationDeduplicator::size);
+        }
+
+        metrics.registerCounter("notification.ratelimit.rejected", "Notifications rejected by rate limiters",
+                this, NotificationServiceImpl::getRateLimitRejectedCount);
+        metrics.registerGauge("notification.circuit.open", "Transports skipped due to open circuit",
+                this, NotificationServiceImpl::getOpenCircuitCount);
+        metrics.registerCounter("notification.retries", "Transport send retries",
+                retryCount, LongAdder::sum);
+
+        if (outbox != null) {
+            metrics.registerGauge("notification.outbox.pending", "Notifications not delivered by all transports yet",
+                    outbox, NotificationOutbox::getPendingCount);
+        }
     }
 
+    /**
+     * Feature state is read from a {@link FeatureSnapshot} shared by all the notifiers of the same feature, so toggling
+     * takes effect within {@link NotificationServiceSettings#getFeatureStateTtl()} (or on
+     * {@link #refreshFeatureStates()}), without feature store lookups on each call.
+     */
     @Override
     public BiConsumer<String, Throwable> wrapErrorNotifier(Feature feature, T category, Logger fallbackLogger) {
-        return featureTester.test(feature)
-                ? (message, cause) -> send(category, message, cause)
-                : fallbackLogger::error;
+        requireNonNull(fallbackLogger, "fallbackLogger");
+        FeatureSnapshot featureSnapshot = featureSnapshots.computeIfAbsent(feature,
+                key -> new FeatureSnapshot(key, featureTester, featureStateTtl));
+
+        return (message, cause) -> {
+            if (featureSnapshot.isActive()) {
+                send(category, message, cause);
+            } else {
+                fallbackLogger.error(message, cause);
+            }
+        };
+    }
+
+    /**
+     * Re-reads states of the features passed to {@link #wrapErrorNotifier(Feature, NotificationCategory, Logger)}.
+     * Meant to be called on feature toggle change events, so toggling takes effect without waiting for the feature
+     * state TTL to expire.
+     */
+    public void refreshFeatureStates() {
+        featureSnapshots.values().forEach(FeatureSnapshot::refresh);
     }
 
     @Override
     public boolean send(T category, String message, Map<String, ?> messageContext) {
-        List<Supplier<Pair<Class<?>, RuntimeException>>> senders =
-                TransformUtils.toList(transports, transport ->
-                        () -> sendViaTransport(transport, category, message, messageContext));
-        List<Pair<Class<?>, RuntimeException>> results = FutureUtils.getInParallel(senders);
-
-        // format results for logging: TransportClass[OK] or TransportClass[ERROR: message]
-        List<String> textResults = results.stream()
-                .map(pair -> pair.getLeft().getName()
-                        + ((pair.getRight() == null)
-                        ? "[OK]"
-                        : "[ERROR: " + pair.getValue().getMessage() + "]"))
-                .toList();
+        Route<T> route = route(category);
+
+        if (isUnrouted(route, category)) {
+            return false;
+        }
+
+        if (isDuplicate(category, message, null)) {
+            return true;
+        }
 
-        long failureCount = results.stream()
-                .filter(pair -> pair.getValue() != null)
-                .count();
+        return !isRateLimited(category, message, null)
+                && dispatch(route, category, () -> message, () -> messageContext, defaultDeadline);
+    }
+
+    /**
+     * The suppliers are evaluated (once) when the first transport accepts the notification, i.e. after routing,
+     * deduplication, and rate limiting, and after the transport's own rate limit, bulkhead, and circuit breaker checks.
+     * There are two exceptions: if deduplication is on, the message supplier is evaluated before deduplication (the
+     * message is part of the fingerprint); if the outbox is on, both suppliers are evaluated before storing the
+     * notification in the outbox, which precedes sending.
+     */
+    @Override
+    public boolean send(T category, Supplier<String> message, Supplier<? extends Map<String, ?>> messageContext) {
+        Route<T> route = route(category);
 
-        if (failureCount == results.size()) {
-            log.error("Notification not sent, all transports failed: {}", textResults);
+        if (isUnrouted(route, category)) {
             return false;
         }
 
-        if (failureCount > 0) {
-            log.warn("Notification sent, but some transports failed: {}", textResults);
-        } else {
-            log.debug("Notification sent, all transports succeeded: {}", textResults);
+        Supplier<String> memoizedMessage = Memoized.of(message);
+
+        if ((deduplicator != null) && isDuplicate(category, memoizedMessage.get(), null)) {
+            return true;
         }
 
-        return true;
+        return !isRateLimited(category, (deduplicator == null) ? null : memoizedMessage.get(), null)
+                && dispatch(route, category, memoizedMessage, messageContext, defaultDeadline);
     }
 
     /**
-     * Sends a notification message using a single transport. Wraps the send operation in a try-catch block to
-     * gracefully handle any exceptions that may occur during the process.
+     * Transports still sending when the deadline expires are reported as {@code TIMEOUT} and interrupted.
      *
-     * @param transport        transport to use for sending the notification
-     * @param category         message category
-     * @param message          message content
-     * @param messageVariables variables for message templating or context
-     * @return pair (transport class, {@link RuntimeException})
+     * @throws IllegalArgumentException deadline is not positive
      */
-    protected Pair<Class<?>, RuntimeException> sendViaTransport(NotificationTransport<T> transport,
-            T category, String message, Map<String, ?> messageVariables) {
+    @Override
+    public boolean sendWithin(T category, String message, Map<String, ?> messageContext, Duration deadline) {
+        if ((deadline == null) || !deadline.isPositive()) {
+            throw new IllegalArgumentException("Deadline must be positive");
+        }
+
+        Route<T> route = route(category);
+
+        if (isUnrouted(route, category)) {
+            return false;
+        }
+
+        if (isDuplicate(category, message, null)) {
+            return true;
+        }
+
+        return !isRateLimited(category, message, null)
+                && dispatch(route, category, () -> message, () -> messageContext, deadline);
+    }
+
+    /**
+     * Same as the default implementation, but the exception is formatted with
+     * {@link NotificationServiceSettings#getThrowableFormatter()}, and only when the first transport accepts the
+     * notification (see {@link #send(NotificationCategory, Supplier, Supplier)}).
+     */
+    @Override
+    public boolean send(T category, String message, Map<String, ?> messageContext, @Nullable Throwable t) {
+        Route<T> route = route(category);
+
+        if (isUnrouted(route, category)) {
+            return false;
+        }
+
+        if (isDuplicate(category, message, t)) {
+            return true;
+        }
+
+        return !isRateLimited(category, message, t)
+                && dispatch(route, category,
+                () -> (t == null) ? message : (message + ": " + throwableFormatter.format(t)),
+                () -> messageContext, defaultDeadline);
+    }
+
+    /**
+     * Each notification goes through routing, deduplication, and category rate limiting, as with {@code send}. Then
+     * each transport receives all the notifications routed to it (within its rate limit) in a single
+     * {@link NotificationTransport#sendBatch(List)} call, which is a single call as far as the transport's bulkhead,
+     * circuit breaker, retries, and timeout are concerned. Transports run in parallel, and all of them are waited for,
+     * regardless of {@link CompletionMode} (but no longer than the default deadline, if any). Each notification is
+     * stored in and acknowledged to the outbox (if any) separately.
+     */
+    @Override
+    public List<Boolean> sendAll(Collection<Notification<T>> notifications) {
+        long startedAt = System.nanoTime();
+        List<Notification<T>> items = new ArrayList<>(notifications);
+        var results = new ArrayList<Boolean>(items.size());
+        var dispatched = new boolean[items.size()];
+        var outboxEntryIds = new long[items.size()];
+        Map<TransportHandle<T>, List<Integer>> routedIndices = new IdentityHashMap<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            Notification<T> notification = items.get(i);
+            T category = notification.category();
+            Route<T> route = route(category);
+            outboxEntryIds[i] = -1;
+
+            if (isUnrouted(route, category)) {
+                results.add(false);
+                continue;
+            }
+
+            if (isDuplicate(category, notification.message(), null)) {
+                results.add(true);
+                continue;
+            }
+
+            results.add(false);
+
+            if (isRateLimited(category, notification.message(), null)) {
+                continue;
+            }
+
+            dispatched[i] = true;
+            outboxEntryIds[i] = appendToOutbox(route, category, notification::message, notification::messageContext);
+
+            for (TransportHandle<T> handle : route.handles()) {
+                routedIndices.computeIfAbsent(handle, key -> new ArrayList<>()).add(i);
+            }
+        }
+
+        long deadlineAt = (defaultDeadline == null) ? NO_DEADLINE : startedAt + defaultDeadline.toNanos();
+        var batches = new ArrayList<Batch<T>>(routedIndices.size());
+
+        // in the configured order of transports
+        for (TransportHandle<T> handle : transports) {
+            List<Integer> indices = routedIndices.get(handle);
+
+            if (indices != null) {
+                Batch<T> batch = sendBatchViaTransportAsync(handle, items, indices, deadlineAt);
+
+                if (batch != null) {
+                    batches.add(batch);
+                }
+            }
+        }
+
+        CompletableFuture.allOf(batches.stream()
+                        .map(Batch::future)
+                        .toArray(CompletableFuture[]::new))
+                .join();
+
+        @SuppressWarnings("unchecked")
+        List<String>[] acknowledgedTransportKeys = new List[items.size()];
+
+        for (Batch<T> batch : batches) {
+            TransportResult result = batch.future().join();
+
+            if (!result.isSuccess()) {
+                log.warn("Batch of {} notification(s) not sent via {}: {}", batch.indices().size(),
+                        batch.handle().key(), result);
+                continue;
+            }
+
+            for (int i : batch.indices()) {
+                results.set(i, true);
+
+                if (outboxEntryIds[i] >= 0) {
+                    if (acknowledgedTransportKeys[i] == null) {
+                        acknowledgedTransportKeys[i] = new ArrayList<>();
+                    }
+
+                    acknowledgedTransportKeys[i].add(batch.handle().key());
+                }
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - startedAt;
+        int sentCount = 0;
+
+        for (int i = 0; i < items.size(); i++) {
+            if (dispatched[i]) {
+                metrics.recordDispatch(items.get(i).category(), results.get(i), elapsedNanos);
+            }
+
+            if (outboxEntryIds[i] >= 0) {
+                acknowledgeInOutbox(outboxEntryIds[i], (acknowledgedTransportKeys[i] == null)
+                        ? List.of()
+                        : acknowledgedTransportKeys[i]);
+            }
+
+            if (results.get(i)) {
+                sentCount++;
+            }
+        }
+
+        log.debug("{} of {} notification(s) sent in bulk via {} transport batch(es)", sentCount, items.size(),
+                batches.size());
+        return results;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> sendAsync(T category, String message, Map<String, ?> messageContext) {
+        return asyncQueue.submit(() -> send(category, message, messageContext));
+    }
+
+    /**
+     * Re-sends notifications stored in the outbox to the transports which haven't delivered them yet. Called on
+     * startup and then periodically. Does nothing if there's no outbox.
+     */
+    public void replayOutbox() {
+        if (outbox == null) {
+            return;
+        }
+
+        for (NotificationOutbox.Entry entry : outbox.claimPending()) {
+            List<String> acknowledged = List.of();
+
+            try {
+                acknowledged = replay(entry);
+            } catch (RuntimeException e) {
+                log.error("Failed to replay notification from outbox: {}", e.getMessage(), e);
+            } finally {
+                acknowledgeInOutbox(entry.id(), acknowledged);
+            }
+        }
+    }
+
+    /**
+     * Stops accepting asynchronous notifications (they're sent synchronously from now on) and waits for the queued
+     * ones to be sent. Then sends pending 'repeated N times' follow-ups, if deduplication is on. Then stops
+     * replaying (waiting for the replay in progress, if any, no longer than the async shutdown timeout) and closes the
+     * outbox, if any. Finally, waits (no longer than
+     * {@link NotificationServiceSettings#getAsyncShutdownTimeout()}) for scheduled retries and releases transport
+     * executors (see {@link TransportExecutorStrategy#releaseExecutor(Executor)}).
+     */
+    @Override
+    public void close() {
+        synchronized (lifecycleLock) {
+            closed = true;
+        }
+
+        asyncQueue.close();
+
+        // scheduled retries and timeouts still run
+        scheduler.shutdown();
+
+        if (deduplicator != null) {
+            deduplicator.close(shutdownTimeout);
+        }
+
+        if (outbox != null) {
+            stopReplaying();
+            outbox.close();
+        }
+
+        // retries run on transport executors
         try {
-            transport.send(category, message, messageVariables);
-            return Pair.of(transport.getClass(), null);
-        } catch (RuntimeException e) {
-            return Pair.of(transport.getClass(), e);
+            if (!scheduler.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Notification retries still pending after {}, releasing transport executors anyway",
+                        shutdownTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        releaseExecutors();
+    }
+
+    /**
+     * Cancels periodic replays and waits for the one in progress, if any.
+     */
+    private void stopReplaying() {
+        outboxScheduler.shutdown();
+
+        try {
+            if (!outboxScheduler.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Outbox replay still running after {}, interrupting it", shutdownTimeout);
+                outboxScheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outboxScheduler.shutdownNow();
         }
     }
 
+    /**
+     * Releases each distinct transport executor once (several transports may share the same executor).
+     */
+    private void releaseExecutors() {
+        Set<Executor> released = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (TransportHandle<T> handle : transports) {
+            if (!released.add(handle.executor())) {
+                continue;
+            }
+
+            try {
+                transportExecutorStrategy.releaseExecutor(handle.executor());
+            } catch (RuntimeException e) {
+                log.error("Failed to release executor of transport {}: {}", handle.key(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * @return transports the category is routed to
+     */
+    private Route<T> route(T category) {
+        if (!categoryRoutes.isEmpty()) {
+            Route<T> route = categoryRoutes.get(category);
+
+            if (route != null) {
+                return route;
+            }
+        }
+
+        return levelRoutes[category.getLogLevel().ordinal()];
+    }
+
+    /**
+     * Checks if the category isn't routed to any transport.
+     *
+     * @return {@code true} if the notification should not be sent
+     */
+    private boolean isUnrouted(Route<T> route, T category) {
+        if (route.handles().length > 0) {
+            return false;
+        }
+
+        log.trace("Notification dropped, category not routed to any transport: {}", category);
+        metrics.recordDropped(category, "unrouted");
+        return true;
+    }
+
+    /**
+     * Checks if the notification is a repeat to be suppressed.
+     *
+     * @return {@code true} if the notification should not be sent
+     */
+    private boolean isDuplicate(T category, String message, @Nullable Throwable t) {
+        if ((deduplicator == null) || deduplicator.tryAcquire(category, message, t)) {
+            return false;
+        }
+
+        log.debug("Repeated notification suppressed: {}", message);
+        metrics.recordDropped(category, "duplicate");
+        return true;
+    }
+
+    /**
+     * Checks if the notification exceeds its category rate limit. If so, and the notification has been deemed the first
+     * occurrence by {@link #isDuplicate(NotificationCategory, String, Throwable)}, releases its fingerprint - otherwise
+     * its repeats would be suppressed although nothing has been delivered.
+     *
+     * @param message message text (before appending exception details), may be {@code null} if deduplication is off
+     * @param t       exception passed to {@link #isDuplicate(NotificationCategory, String, Throwable)}
+     * @return {@code true} if the notification should not be sent
+     */
+    private boolean isRateLimited(T category, @Nullable String message, @Nullable Throwable t) {
+        if (!isRateLimited(category)) {
+            return false;
+        }
+
+        if (deduplicator != null) {
+            deduplicator.release(category, message, t);
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks if the notification exceeds its category rate limit.
+     *
+     * @return {@code true} if the notification should not be sent
+     */
+    private boolean isRateLimited(T category) {
+        TokenBucketRateLimiter rateLimiter = categoryRateLimiters.get(category);
+
+        if ((rateLimiter == null) && (defaultCategoryRateLimit != null)) {
+            rateLimiter = categoryRateLimiters.computeIfAbsent(category,
+                    key -> new TokenBucketRateLimiter(defaultCategoryRateLimit));
+        }
+
+        if ((rateLimiter == null) || rateLimiter.tryAcquire()) {
+            return false;
+        }
+
+        log.trace("Notification dropped, category rate limit exceeded: {}", category);
+        metrics.recordDropped(category, "rate_limited");
+        return true;
+    }
+
+    /**
+     * @return number of notifications rejected by category and transport rate limiters
+     */
+    private long getRateLimitRejectedCount() {
+        long count = 0;
+
+        for (TokenBucketRateLimiter rateLimiter : categoryRateLimiters.values()) {
+            count += rateLimiter.getRejectedCount();
+        }
+
+        for (TransportHandle<T> handle : transports) {
+            if (handle.rateLimiter() != null) {
+                count += handle.rateLimiter().getRejectedCount();
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * @return number of transports whose circuit is open
+     */
+    private int getOpenCircuitCount() {
+        int count = 0;
+
+        for (TransportHandle<T> handle : transports) {
+            if ((handle.circuitBreaker() != null) && handle.circuitBreaker().isOpen()) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Sends notification via the transports of the route, waits for them according to {@link CompletionMode}.
+     *
+     * @param deadline if set, transports still sending after this time are reported as {@code TIMEOUT}
+     * @return {@code true} if at least one transport succeeded
+     */
+    private boolean dispatch(Route<T> route, T category, Supplier<String> messageSupplier,
+            Supplier<? extends Map<String, ?>> messageContextSupplier, @Nullable Duration deadline) {
+        long startedAt = System.nanoTime();
+        // evaluated by the first transport accepting the notification
+        Supplier<String> message = Memoized.of(messageSupplier);
+        Supplier<Map<String, ?>> messageContext = Memoized.of(messageContextSupplier);
+        long outboxEntryId = appendToOutbox(route, category, message, messageContext);
+        TransportHandle<T>[] handles = route.handles();
+
+        CompletableFuture<TransportResult>[] futures = sendViaTransports(handles, category, message,
+                messageContext, (deadline == null) ? NO_DEADLINE : startedAt + deadline.toNanos());
+        CompletableFuture<Void> allDone = CompletableFuture.allOf(futures);
+        awaitCompletion(futures, allDone);
+
+        // only the results available so far
+        List<TransportResult> results = new ArrayList<>(futures.length);
+        int successCount = 0;
+        int failureCount = 0;
+        int timeoutCount = 0;
+
+        for (CompletableFuture<TransportResult> future : futures) {
+            TransportResult result = future.getNow(null);
+
+            if (result == null) {
+                continue;
+            }
+
+            results.add(result);
+
+            switch (result.status()) {
+                case OK -> successCount++;
+                case ERROR -> failureCount++;
+                case TIMEOUT -> timeoutCount++;
+                default -> {
+                    // skipped transports are neither successes nor failures
+                }
+            }
+        }
+
+        metrics.recordDispatch(category, successCount > 0, System.nanoTime() - startedAt);
+
+        // acknowledged in one go, otherwise the outbox would consider the notification no longer in flight
+        if (outboxEntryId >= 0) {
+            allDone.thenRun(() -> acknowledgeInOutbox(outboxEntryId,
+                    successfulTransportKeys(handles, joinAll(futures))));
+        }
+
+        if (results.size() < futures.length) {
+            allDone.thenRun(() -> logBackgroundResults(futures));
+            log.debug("Notification sent ({}), {} transport(s) still sending: {}",
+                    completionMode, futures.length - results.size(), results);
+            return true;
+        }
+
+        // results are logged as TransportClass[OK], TransportClass[ERROR: message], TransportClass[SKIPPED: reason]
+        if (successCount == 0) {
+            if (failureCount + timeoutCount > 0) {
+                log.error("Notification not sent, all transports failed, timed out, or skipped ({} timed out): {}",
+                        timeoutCount, results);
+            } else {
+                log.debug("Notification not sent, all transports skipped: {}", results);
+            }
+
+            return false;
+        }
+
+        if (failureCount + timeoutCount > 0) {
+            log.warn("Notification sent, but some transports failed or timed out ({} timed out): {}",
+                    timeoutCount, results);
+        } else if (log.isDebugEnabled()) {
+            log.debug("Notification sent, all transports succeeded: {}", results);
+        }
+
+        return true;
+    }
+
+    /**
+     * Blocks until all the transports have finished or, if {@link #completionMode} allows, until enough of them have
+     * succeeded.
+     */
+    private void awaitCompletion(CompletableFuture<TransportResult>[] futures, CompletableFuture<Void> allDone) {
+        if (completionMode.quorum() >= futures.length) {
+            allDone.join();
+            return;
+        }
+
+        var quorumReached = new CompletableFuture<Void>();
+        var successCount = new AtomicInteger();
+
+        for (CompletableFuture<TransportResult> future : futures) {
+            future.thenAccept(result -> {
+                if (result.isSuccess() && (successCount.incrementAndGet() >= completionMode.quorum())) {
+                    quorumReached.complete(null);
+                }
+            });
+        }
+
+        CompletableFuture.anyOf(quorumReached, allDone).join();
+    }
+
+    /**
+     * Logs results of the transports which finished after {@code send} had returned.
+     */
+    private void logBackgroundResults(CompletableFuture<TransportResult>[] futures) {
+        TransportResult[] results = joinAll(futures);
+
+        if (Arrays.stream(results).anyMatch(result -> !result.isSuccess()
+                && (result.status() != TransportResult.Status.SKIPPED))) {
+            log.warn("Notification sent, but some transports failed afterwards: {}", Arrays.asList(results));
+        } else if (log.isDebugEnabled()) {
+            log.debug("Notification sent, all transports finished: {}", Arrays.asList(results));
+        }
+    }
+
+    /**
+     * Sends notification via the given transports in parallel.
+     *
+     * @param deadlineAt {@link System#nanoTime()} by which the transports must finish, or {@link #NO_DEADLINE}
+     * @return futures of results, in the order of transports (never completed exceptionally)
+     */
+    private CompletableFuture<TransportResult>[] sendViaTransports(TransportHandle<T>[] handles,
+            T category, Supplier<String> message, Supplier<? extends Map<String, ?>> messageContext, long deadlineAt) {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<TransportResult>[] futures = new CompletableFuture[handles.length];
+
+        for (int i = 0; i < handles.length; i++) {
+            futures[i] = sendViaTransportAsync(handles[i], category, message, messageContext, deadlineAt);
+        }
+
+        return futures;
+    }
+
+    /**
+     * Waits for all the results.
+     *
+     * @return results, in the order of futures
+     */
+    private static TransportResult[] joinAll(CompletableFuture<TransportResult>[] futures) {
+        CompletableFuture.allOf(futures).join();
+        var results = new TransportResult[futures.length];
+
+        for (int i = 0; i < futures.length; i++) {
+            results[i] = futures[i].join();
+        }
+
+        return results;
+    }
+
+    /**
+     * Sends notification from the outbox via the transports which haven't delivered it yet.
+     *
+     * @return keys of transports to be acknowledged
+     */
+    private List<String> replay(NotificationOutbox.Entry entry) {
+        Set<String> remainingTransports = entry.remainingTransports();
+        var acknowledged = new ArrayList<String>();
+
+        // transports removed from configuration since the notification was stored would never deliver it
+        for (String transportKey : remainingTransports) {
+            if (!transportKeys.contains(transportKey)) {
+                acknowledged.add(transportKey);
+            }
+        }
+
+        T category = resolveCategory(entry.categoryKey());
+
+        if (category == null) {
+            log.warn("Unknown category '{}', notification dropped from outbox", entry.categoryKey());
+            return List.copyOf(remainingTransports);
+        }
+
+        @SuppressWarnings("unchecked")
+        TransportHandle<T>[] handles = Arrays.stream(transports)
+                .filter(handle -> remainingTransports.contains(handle.key()))
+                .toArray(TransportHandle[]::new);
+
+        TransportResult[] results = joinAll(sendViaTransports(handles, category, entry::message, entry::context,
+                NO_DEADLINE));
+        acknowledged.addAll(successfulTransportKeys(handles, results));
+
+        log.info("Notification replayed from outbox: {}", Arrays.asList(results));
+        return acknowledged;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private T resolveCategory(String categoryKey) {
+        try {
+            return (T) outboxCategoryResolver.apply(categoryKey);
+        } catch (IllegalArgumentException e) {
+            // thrown by Enum.valueOf()
+            return null;
+        }
+    }
+
+    /**
+     * Stores notification in the outbox, if any. Outbox errors never prevent notifications from being sent.
+     *
+     * @return outbox entry ID, -1 if not stored
+     */
+    private long appendToOutbox(Route<T> route, T category, Supplier<String> message,
+            Supplier<? extends Map<String, ?>> messageContext) {
+        // no transports covered by the outbox
+        if ((outbox == null) || route.keys().isEmpty()) {
+            return -1;
+        }
+
+        try {
+            return outbox.append(NotificationOutbox.categoryKey(category), message.get(), messageContext.get(),
+                    route.keys());
+        } catch (RuntimeException e) {
+            log.error("Failed to store notification in outbox: {}", e.getMessage(), e);
+            return -1;
+        }
+    }
+
+    private void acknowledgeInOutbox(long outboxEntryId, List<String> acknowledgedTransportKeys) {
+        try {
+            outbox.acknowledge(outboxEntryId, acknowledgedTransportKeys);
+        } catch (RuntimeException e) {
+            log.error("Failed to acknowledge notification in outbox: {}", e.getMessage(), e);
+        }
+    }
+
+    private List<String> successfulTransportKeys(TransportHandle<T>[] handles, TransportResult[] results) {
+        var keys = new ArrayList<String>(handles.length);
+
+        for (int i = 0; i < handles.length; i++) {
+            if (results[i].isSuccess()) {
+                keys.add(handles[i].key());
+            }
+        }
+
+        return keys;
+    }
+
+    /**
+     * Sends a notification message using a single transport. Wraps the send operation in a try-catch block to
+     * gracefully handle any exceptions that may occur during the process.
+     *
+     * @param transport        transport to use for sending the notification
+     * @param category         message category
+     * @param message          message content
+     * @param messageVariables variables for message templating or context
+     * @return transport result
+     */
+    protected TransportResult sendViaTransport(NotificationTransport<T> transport,
+            T category, String message, Map<String, ?> messageVariables) {
+        try {
+            transport.send(category, message, messageVariables);
+            return TransportResult.success(AopUtils.getTargetClass(transport));
+        } catch (RuntimeException e) {
+            return TransportResult.failure(AopUtils.getTargetClass(transport), e);
+        }
+    }
+
+    /**
+     * Sends notifications using a single transport, in one {@link NotificationTransport#sendBatch(List)} call. Wraps
+     * the send operation in a try-catch block to gracefully handle any exceptions that may occur during the process.
+     *
+     * @param transport     transport to use for sending the notifications
+     * @param notifications notifications to send
+     * @return transport result, applying to all the notifications
+     */
+    protected TransportResult sendBatchViaTransport(NotificationTransport<T> transport,
+            List<Notification<T>> notifications) {
+        try {
+            transport.sendBatch(notifications);
+            return TransportResult.success(AopUtils.getTargetClass(transport));
+        } catch (RuntimeException e) {
+            return TransportResult.failure(AopUtils.getTargetClass(transport), e);
+        }
+    }
+
+    /**
+     * Runs {@link #sendViaTransport(NotificationTransport, NotificationCategory, String, Map)} on the transport's
+     * executor, unless the transport's rate limit is exceeded, its bulkhead is full, or its circuit is open. Message
+     * and its context are evaluated only if the transport accepts the notification, in the caller thread.
+     *
+     * @param deadlineAt {@link System#nanoTime()} by which the transport must finish, or {@link #NO_DEADLINE}
+     */
+    private CompletableFuture<TransportResult> sendViaTransportAsync(TransportHandle<T> handle,
+            T category, Supplier<String> message, Supplier<? extends Map<String, ?>> messageContext, long deadlineAt) {
+        if ((handle.rateLimiter() != null) && !handle.rateLimiter().tryAcquire()) {
+            return completedResult(category, TransportResult.skipped(handle.transportClass(),
+                    new RejectedExecutionException("rate limit exceeded")));
+        }
+
+        return startCall(handle, category,
+                () -> new TransportCall(handle, category, message.get(), messageContext.get(), null), deadlineAt);
+    }
+
+    /**
+     * Runs {@link #sendBatchViaTransport(NotificationTransport, List)} on the transport's executor for the
+     * notifications within the transport's rate limit (the others are skipped), as a single call.
+     *
+     * @param items      all the notifications being sent
+     * @param indices    indices of the notifications routed to the transport
+     * @param deadlineAt {@link System#nanoTime()} by which the transport must finish, or {@link #NO_DEADLINE}
+     * @return batch sent, {@code null} if all the notifications have been skipped
+     */
+    @Nullable
+    private Batch<T> sendBatchViaTransportAsync(TransportHandle<T> handle, List<Notification<T>> items,
+            List<Integer> indices, long deadlineAt) {
+        var admittedIndices = new ArrayList<Integer>(indices.size());
+        var notifications = new ArrayList<Notification<T>>(indices.size());
+
+        for (int i : indices) {
+            if ((handle.rateLimiter() != null) && !handle.rateLimiter().tryAcquire()) {
+                completedResult(items.get(i).category(), TransportResult.skipped(handle.transportClass(),
+                        new RejectedExecutionException("rate limit exceeded")));
+                continue;
+            }
+
+            admittedIndices.add(i);
+            notifications.add(items.get(i));
+        }
+
+        if (notifications.isEmpty()) {
+            return null;
+        }
+
+        T category = notifications.getFirst().category();
+        return new Batch<>(handle, admittedIndices, startCall(handle, category,
+                () -> new TransportCall(handle, category, null, null, List.copyOf(notifications)), deadlineAt));
+    }
+
+    /**
+     * Runs the call on the transport's executor, unless the transport's bulkhead is full or its circuit is open.
+     *
+     * @param callFactory creates the call (in the caller thread) once the transport has accepted it
+     * @param deadlineAt  {@link System#nanoTime()} by which the transport must finish, or {@link #NO_DEADLINE}
+     */
+    private CompletableFuture<TransportResult> startCall(TransportHandle<T> handle, T category,
+            Supplier<TransportCall> callFactory, long deadlineAt) {
+        if (!handle.bulkhead().tryAcquire()) {
+            return completedResult(category, TransportResult.failure(handle.transportClass(),
+                    new RejectedExecutionException("Bulkhead full")));
+        }
+
+        TransportCircuitBreaker circuitBreaker = handle.circuitBreaker();
+        TransportCircuitBreaker.Permit permit = (circuitBreaker == null)
+                ? null
+                : circuitBreaker.tryAcquire();
+
+        if (permit == TransportCircuitBreaker.Permit.REJECTED) {
+            handle.bulkhead().release();
+            return completedResult(category, TransportResult.skipped(handle.transportClass(),
+                    new RejectedExecutionException("circuit open")));
+        }
+
+        TransportCall call;
+
+        try {
+            call = callFactory.get();
+        } catch (RuntimeException e) {
+            handle.bulkhead().release();
+
+            if (circuitBreaker != null) {
+                circuitBreaker.onCancelled(permit);
+            }
+
+            log.error("Failed to build notification: {}", e.getMessage(), e);
+            return completedResult(category, TransportResult.failure(handle.transportClass(), e));
+        }
+
+        call.circuitPermit = permit;
+
+        try {
+            scheduleTimeout(call, deadlineAt);
+            handle.executor().execute(() -> attempt(call, 1));
+            return call.future;
+        } catch (RejectedExecutionException e) {
+            cancelTimeout(call);
+            handle.bulkhead().release();
+
+            if (circuitBreaker != null) {
+                circuitBreaker.onCancelled(permit);
+            }
+
+            return completedResult(category, TransportResult.failure(handle.transportClass(), e));
+        }
+    }
+
+    /**
+     * Schedules {@link #timeOut(TransportCall, Duration)} according to the transport timeout and the notification
+     * deadline, whichever comes first.
+     */
+    private void scheduleTimeout(TransportCall call, long deadlineAt) {
+        long timeoutNanos = (call.handle.timeout() == null)
+                ? Long.MAX_VALUE
+                : call.handle.timeout().toNanos();
+
+        if (deadlineAt != NO_DEADLINE) {
+            timeoutNanos = Math.min(timeoutNanos, Math.max(0, deadlineAt - call.startedAt));
+        }
+
+        if (timeoutNanos == Long.MAX_VALUE) {
+            return;
+        }
+
+        Duration timeout = Duration.ofNanos(timeoutNanos);
+
+        try {
+            call.timeoutTask = scheduler.schedule(() -> timeOut(call, timeout), timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // service closed, notifications sent during shutdown are not worth failing
+            log.debug("Transport {} timeout not enforced, service closed", call.handle.key());
+        }
+    }
+
+    private void cancelTimeout(TransportCall call) {
+        ScheduledFuture<?> timeoutTask = call.timeoutTask;
+
+        if (timeoutTask != null) {
+            timeoutTask.cancel(false);
+        }
+    }
+
+    /**
+     * Reports the transport as timed out and interrupts the thread sending, if any. Late results of the transport are
+     * ignored.
+     */
+    private void timeOut(TransportCall call, Duration timeout) {
+        if (!complete(call, TransportResult.timedOut(call.handle.transportClass(), timeout))) {
+            return;
+        }
+
+        synchronized (call) {
+            if (call.sendingThread != null) {
+                call.sendingThread.interrupt();
+                call.interruptSent = true;
+            }
+        }
+    }
+
+    /**
+     * Makes a single attempt to send via transport. Then either schedules the next attempt (if the transport's retry
+     * policy says so) or completes the call.
+     */
+    private void attempt(TransportCall call, int attemptNumber) {
+        TransportHandle<T> handle = call.handle;
+
+        // timed out while waiting for retry
+        if (call.completed.get()) {
+            handle.bulkhead().release();
+            return;
+        }
+
+        TransportResult result;
+        // for transports called in the caller thread, the interrupt may be meant for the caller
+        boolean interruptedBefore = Thread.currentThread().isInterrupted();
+
+        synchronized (call) {
+            call.sendingThread = Thread.currentThread();
+        }
+
+        // subclasses may override sendViaTransport()
+        try {
+            result = (call.batch == null)
+                    ? sendViaTransport(handle.transport(), call.category, call.message, call.messageContext)
+                    : sendBatchViaTransport(handle.transport(), call.batch);
+        } catch (RuntimeException e) {
+            result = TransportResult.failure(handle.transportClass(), e);
+        } finally {
+            synchronized (call) {
+                call.sendingThread = null;
+            }
+        }
+
+        if (call.completed.get()) {
+            // clear interrupt sent on timeout (the thread may be reused), but not the one sent by somebody else
+            if (isInterruptSent(call) && !interruptedBefore) {
+                Thread.interrupted();
+            }
+
+            handle.bulkhead().release();
+            log.debug("Transport {} finished after timing out: {}", handle.key(), result);
+            return;
+        }
+
+        boolean retryScheduled = (result.status() == TransportResult.Status.ERROR)
+                && scheduleRetry(call, attemptNumber, result);
+
+        if (!retryScheduled) {
+            handle.bulkhead().release();
+            complete(call, result);
+        }
+    }
+
+    private boolean isInterruptSent(TransportCall call) {
+        synchronized (call) {
+            return call.interruptSent;
+        }
+    }
+
+    /**
+     * Schedules the next attempt, which will run on the transport's executor (see
+     * {@link #retryExecutor(TransportHandle)}). No thread waits for it meanwhile.
+     *
+     * @return {@code false} if there will be no more attempts
+     */
+    private boolean scheduleRetry(TransportCall call, int attemptNumber, TransportResult result) {
+        TransportHandle<T> handle = call.handle;
+        RetryPolicy retryPolicy = handle.retryPolicy();
+
+        if (retryPolicy == null) {
+            return false;
+        }
+
+        long backoffNanos = retryPolicy.backoffNanos(attemptNumber);
+
+        if (!retryPolicy.shouldRetry(attemptNumber, result.error(),
+                System.nanoTime() - call.startedAt + backoffNanos)) {
+            return false;
+        }
+
+        Runnable nextAttempt = () -> {
+            try {
+                retryExecutor(handle).execute(() -> attempt(call, attemptNumber + 1));
+            } catch (RejectedExecutionException e) {
+                handle.bulkhead().release();
+                complete(call, TransportResult.failure(handle.transportClass(), e));
+            }
+        };
+
+        try {
+            scheduler.schedule(nextAttempt, backoffNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // service closed
+            return false;
+        }
+
+        retryCount.increment();
+        log.debug("Transport {} failed (attempt {}), retrying in {} ms: {}", handle.key(), attemptNumber,
+                TimeUnit.NANOSECONDS.toMillis(backoffNanos), result.error().getMessage());
+        return true;
+    }
+
+    /**
+     * Retries never run in the scheduler thread: it also enforces all the timeouts (including the one of the retried
+     * call), which a slow transport would hold up. Therefore, transports called in the caller thread are retried in new
+     * virtual threads.
+     */
+    private static Executor retryExecutor(TransportHandle<?> handle) {
+        return (handle.executor() == TransportExecutorStrategy.CALLER_THREAD)
+                ? RETRY_EXECUTOR
+                : handle.executor();
+    }
+
+    /**
+     * Records the final result of the call (unless it has been recorded already - the call may time out while the
+     * transport is finishing) and completes the future. Doesn't release the bulkhead: the transport may still be
+     * sending.
+     *
+     * @return {@code false} if the call has been completed already
+     */
+    private boolean complete(TransportCall call, TransportResult result) {
+        if (!call.completed.compareAndSet(false, true)) {
+            return false;
+        }
+
+        cancelTimeout(call);
+        TransportHandle<T> handle = call.handle;
+
+        try {
+            metrics.recordTransport(handle.transportClass(), call.category, result.status(),
+                    System.nanoTime() - call.startedAt);
+
+            if (handle.circuitBreaker() != null) {
+                if (result.isSuccess()) {
+                    handle.circuitBreaker().onSuccess(call.circuitPermit);
+                } else {
+                    handle.circuitBreaker().onFailure(call.circuitPermit);
+                }
+            }
+        } finally {
+            call.future.complete(result);
+        }
+
+        return true;
+    }
+
+    /**
+     * Records result of a transport which hasn't been called.
+     */
+    private CompletableFuture<TransportResult> completedResult(T category, TransportResult result) {
+        metrics.recordTransport(result.transportClass(), category, result.status(), 0);
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * Selects transports for the level.
+     *
+     * @param level            log level of the categories routed
+     * @param transportClasses if set, only transports of these classes are selected
+     * @throws IllegalArgumentException unknown transport class
+     */
+    private Route<T> createRoute(Level level, @Nullable Set<Class<?>> transportClasses) {
+        if (transportClasses != null) {
+            for (Class<?> transportClass : transportClasses) {
+                if (Arrays.stream(transports).noneMatch(handle -> handle.transportClass() == transportClass)) {
+                    throw new IllegalArgumentException("Unknown transport in notification routes: " + transportClass);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        TransportHandle<T>[] handles = Arrays.stream(transports)
+                .filter(handle -> (transportClasses == null) || transportClasses.contains(handle.transportClass()))
+                .filter(handle -> (handle.minLevel() == null) || (level.toInt() >= handle.minLevel().toInt()))
+                .toArray(TransportHandle[]::new);
+
+        return new Route<>(handles, Arrays.stream(handles)
+                .filter(handle -> handle.transport().confirmsDelivery())
+                .map(TransportHandle::key)
+                .toList());
+    }
+
+    private TransportHandle<T> createTransportHandle(NotificationTransport<T> transport, Class<?> transportClass,
+            String key, NotificationServiceSettings settings) {
+        TransportSettings transportSettings = settings.getTransportSettings()
+                .getOrDefault(transportClass, settings.getDefaultTransportSettings());
+
+        if (transportSettings.getMaxConcurrentCalls() < 1) {
+            throw new IllegalArgumentException("Transport bulkhead size must be positive: " + transportClass);
+        }
+
+        if ((transportSettings.getTimeout() != null) && !transportSettings.getTimeout().isPositive()) {
+            throw new IllegalArgumentException("Transport timeout must be positive: " + transportClass);
+        }
+
+        return new TransportHandle<>(transport, transportClass, key,
+                settings.getTransportExecutorStrategy().createExecutor(transportClass),
+                new Semaphore(transportSettings.getMaxConcurrentCalls()),
+                (transportSettings.getRateLimit() == null)
+                        ? null
+                        : new TokenBucketRateLimiter(transportSettings.getRateLimit()),
+                (transportSettings.getCircuitBreaker() == null)
+                        ? null
+                        : new TransportCircuitBreaker(key, transportSettings.getCircuitBreaker()),
+                transportSettings.getRetryPolicy(),
+                transportSettings.getTimeout(),
+                transportSettings.getMinLevel());
+    }
+
+    /**
+     * Transport and its per-transport machinery, built once at construction. The key consists of transport class name
+     * and the number of preceding transports of the same class: it's stable across restarts (as long as transports
+     * are configured in the same order), so the outbox can refer to it.
+     */
+    private record TransportHandle<T extends NotificationCategory>(
+
+            NotificationTransport<T> transport,
+            Class<?> transportClass,
+            String key,
+            Executor executor,
+            Semaphore bulkhead,
+            @Nullable TokenBucketRateLimiter rateLimiter,
+            @Nullable TransportCircuitBreaker circuitBreaker,
+            @Nullable RetryPolicy retryPolicy,
+            @Nullable Duration timeout,
+            @Nullable Level minLevel) {
+    }
+
+    /**
+     * Transports a category is routed to, computed once at construction.
+     *
+     * @param handles transports, in the configured order
+     * @param keys    {@link TransportHandle#key() keys} of the transports covered by the outbox (those
+     *                {@link NotificationTransport#confirmsDelivery() confirming delivery})
+     */
+    private record Route<T extends NotificationCategory>(
+
+            TransportHandle<T>[] handles,
+            List<String> keys) {
+    }
+
+    /**
+     * Notifications sent via a transport in a single call.
+     *
+     * @param handle  transport
+     * @param indices indices of the notifications in the {@code sendAll} argument
+     * @param future  result of the call, applying to all the notifications
+     */
+    private record Batch<T extends NotificationCategory>(
+
+            TransportHandle<T> handle,
+            List<Integer> indices,
+            CompletableFuture<TransportResult> future) {
+    }
+
+    /**
+     * Evaluates the supplier at most once, caching either the value or the exception. Not thread-safe: used by the
+     * dispatching thread only.
+     *
+     * @param <V> value type
+     */
+    private static final class Memoized<V> implements Supplier<V> {
+
+        @Nullable
+        private Supplier<? extends V> supplier;
+        @Nullable
+        private V value;
+        @Nullable
+        private RuntimeException error;
+
+        private Memoized(Supplier<? extends V> supplier) {
+            this.supplier = supplier;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <V> Supplier<V> of(Supplier<? extends V> supplier) {
+            return (supplier instanceof Memoized<?>)
+                    ? (Supplier<V>) supplier
+                    : new Memoized<>(requireNonNull(supplier, "supplier"));
+        }
+
+        @Override
+        public V get() {
+            if (supplier != null) {
+                try {
+                    value = supplier.get();
+                } catch (RuntimeException e) {
+                    error = e;
+                } finally {
+                    supplier = null;
+                }
+            }
+
+            if (error != null) {
+                throw error;
+            }
+
+            return value;
+        }
+
+    }
+
+    /**
+     * State of sending a notification (or a batch of them) via a single transport, shared by all attempts and the
+     * timeout task.
+     */
+    private final class TransportCall {
+
+        private final TransportHandle<T> handle;
+        /**
+         * For batches, category of the first notification (for metrics).
+         */
+        private final T category;
+        @Nullable
+        private final String message;
+        @Nullable
+        private final Map<String, ?> messageContext;
+        /**
+         * If set, {@link #message} and {@link #messageContext} are not.
+         */
+        @Nullable
+        private final List<Notification<T>> batch;
+        private final long startedAt = System.nanoTime();
+        private final CompletableFuture<TransportResult> future = new CompletableFuture<>();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        /**
+         * Guarded by {@code this}, so the timeout task never interrupts a thread that has moved on to something else.
+         */
+        @Nullable
+        private Thread sendingThread;
+        /**
+         * Guarded by {@code this}: whether {@link #sendingThread} has been interrupted on timeout.
+         */
+        private boolean interruptSent;
+        @Nullable
+        private volatile ScheduledFuture<?> timeoutTask;
+        /**
+         * Set before the first attempt, {@code null} if the transport has no circuit breaker.
+         */
+        @Nullable
+        private TransportCircuitBreaker.Permit circuitPermit;
+
+        private TransportCall(TransportHandle<T> handle, T category, @Nullable String message,
+                @Nullable Map<String, ?> messageContext, @Nullable List<Notification<T>> batch) {
+            this.handle = handle;
+            this.category = category;
+            this.message = message;
+            this.messageContext = messageContext;
+            this.batch = batch;
+        }
+
+    }
+
 }
@@ -0,0 +1,176 @@
+package guru.nicks.commons.notification.impl;
+
+import guru.nicks.commons.notification.NotificationCategory;
+import guru.nicks.commons.notification.impl.AsyncNotificationQueue.OverflowPolicy;
+
+import jakarta.annotation.Nullable;
+import lombok.Builder;
+import lombok.Value;
+import org.slf4j.event.Level;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * {@link NotificationServiceImpl} settings. Defaults are suitable for most applications.
+ */
+@Value
+@Builder(toBuilder = true)
+public class NotificationServiceSettings {
+
+    /**
+     * Maximum number of notifications waiting to be sent asynchronously.
+     */
+    @Builder.Default
+    int asyncQueueCapacity = 1000;
+
+    /**
+     * Number of threads sending queued notifications.
+     */
+    @Builder.Default
+    int asyncWorkerCount = 2;
+
+    /**
+     * What to do with a new asynchronous notification when the queue is full.
+     */
+    @Builder.Default
+    OverflowPolicy asyncOverflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    /**
+     * How long to wait, on service shutdown, for the queued notifications to be sent.
+     */
+    @Builder.Default
+    Duration asyncShutdownTimeout = Duration.ofSeconds(10);
+
+    /**
+     * When {@code send} returns: after all the transports have finished, or as soon as enough of them have succeeded.
+     */
+    @Builder.Default
+    CompletionMode completionMode = CompletionMode.ALL;
+
+    /**
+     * If set, {@code send} waits for the transports no longer than this (unless a deadline is passed explicitly, see
+     * {@link NotificationServiceImpl#sendWithin}). Transports still sending by then are reported as {@code TIMEOUT}
+     * and interrupted. By default, there's no deadline, only per-transport timeouts, if any.
+     */
+    @Nullable
+    Duration defaultDeadline;
+
+    /**
+     * How long feature states checked by error notifiers (see
+     * {@link NotificationServiceImpl#wrapErrorNotifier(org.togglz.core.Feature, NotificationCategory,
+     * org.slf4j.Logger)}) are cached.
+     */
+    @Builder.Default
+    Duration featureStateTtl = Duration.ofSeconds(5);
+
+    /**
+     * Formats exceptions passed to {@code send}. Caches stack traces, so it's best shared between services.
+     */
+    @Builder.Default
+    ThrowableFormatter throwableFormatter = ThrowableFormatter.withDefaults();
+
+    /**
+     * Executors transports run on.
+     */
+    @Builder.Default
+    TransportExecutorStrategy transportExecutorStrategy = TransportExecutorStrategy.virtualThreadPerTransport();
+
+    /**
+     * Settings for transports not mentioned in {@link #getTransportSettings()}.
+     */
+    @Builder.Default
+    TransportSettings defaultTransportSettings = TransportSettings.builder().build();
+
+    /**
+     * Per-transport settings, keys are transport classes (unwrapped from proxies).
+     */
+    @Builder.Default
+    Map<Class<?>, TransportSettings> transportSettings = Map.of();
+
+    /**
+     * Transports (classes, unwrapped from proxies) receiving categories of the given log level. Levels not mentioned
+     * here are routed to all the transports. Transport {@link TransportSettings#getMinLevel() minimum levels} apply on
+     * top of that. Categories routed to no transport are dropped before any formatting takes place.
+     */
+    @Builder.Default
+    Map<Level, Set<Class<?>>> levelRoutes = Map.of();
+
+    /**
+     * Per-category routes, override {@link #getLevelRoutes()}.
+     */
+    @Builder.Default
+    Map<NotificationCategory, Set<Class<?>>> categoryRoutes = Map.of();
+
+    /**
+     * If set, repeats of the same notification within this period are suppressed (see
+     * {@link NotificationDeduplicator}), {@code send} returning {@code true} for them. Notifications dropped by
+     * category rate limits don't start the period. By default, deduplication is off.
+     */
+    @Nullable
+    Duration deduplicationTtl;
+
+    /**
+     * Maximum number of distinct notifications tracked for deduplication.
+     */
+    @Builder.Default
+    int deduplicationMaxEntries = 10_000;
+
+    /**
+     * Whether exception type is part of deduplication fingerprint (message and category always are).
+     */
+    @Builder.Default
+    boolean deduplicationIncludesExceptionType = true;
+
+    /**
+     * How often the 'repeated N times' follow-ups for suppressed notifications are sent.
+     */
+    @Builder.Default
+    Duration deduplicationReportInterval = Duration.ofMinutes(1);
+
+    /**
+     * Per-category rate limits. Notifications exceeding them are dropped before any formatting takes place.
+     */
+    @Builder.Default
+    Map<NotificationCategory, RateLimit> categoryRateLimits = Map.of();
+
+    /**
+     * Rate limit applied to each category (separately) not mentioned in {@link #getCategoryRateLimits()}. By default,
+     * such categories are not limited.
+     */
+    @Nullable
+    RateLimit defaultCategoryRateLimit;
+
+    /**
+     * If set, notifications are written to a durable {@link NotificationOutbox} in this directory before being
+     * dispatched, and those not delivered by all transports are replayed - on startup and then periodically. By
+     * default, there's no outbox.
+     */
+    @Nullable
+    Path outboxDirectory;
+
+    /**
+     * Outbox segment file size, in bytes. Each notification (including exception stack trace and message context) must
+     * fit into a single segment.
+     */
+    @Builder.Default
+    int outboxSegmentSize = 16 * 1024 * 1024;
+
+    /**
+     * How often notifications not delivered by all transports are replayed from the outbox.
+     */
+    @Builder.Default
+    Duration outboxReplayInterval = Duration.ofMinutes(1);
+
+    /**
+     * Restores categories of replayed notifications from their keys (see
+     * {@link NotificationOutbox#categoryKey(NotificationCategory)}), such as {@code MyCategory::valueOf}. Required if
+     * the outbox is enabled.
+     */
+    @Nullable
+    Function<String, ? extends NotificationCategory> outboxCategoryResolver;
+
+}
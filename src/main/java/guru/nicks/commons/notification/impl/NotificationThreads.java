@@ -0,0 +1,28 @@
+package guru.nicks.commons.notification.impl;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Thread factories for background notification work.
+ */
+@UtilityClass
+public class NotificationThreads {
+
+    /**
+     * Creates single-thread scheduler whose thread is a daemon, so it never prevents JVM shutdown.
+     *
+     * @param threadName thread name
+     * @return scheduler
+     */
+    public static ScheduledExecutorService newScheduler(String threadName) {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+}
@@ -1,12 +1,18 @@
 package guru.nicks.commons.notification.impl;
 
+import guru.nicks.commons.notification.Notification;
 import guru.nicks.commons.notification.NotificationCategory;
 import guru.nicks.commons.notification.NotificationTransport;
 import guru.nicks.commons.notification.service.EmailService;
+import guru.nicks.commons.notification.service.TemplatedHtmlEmail;
 import guru.nicks.commons.utils.TransformUtils;
 
+import jakarta.annotation.Nullable;
+
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -15,20 +21,28 @@ import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotBlank;
 import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
 
 /**
- * Email transport implementation.
+ * Email transport implementation. Sends an email per notification or, in digest mode, buffers notifications and sends
+ * them in bulk (see {@link NotificationDigest}). In digest mode, the transport reports success as soon as the
+ * notification is buffered, therefore it doesn't {@link #confirmsDelivery() confirm delivery}. Batches (see
+ * {@link #sendBatch(List)}) are sent over a single connection, if {@link EmailService} supports that.
  *
  * @param <T> notification category type
  */
-public class NotificationTransportImplEmail<T extends NotificationCategory> implements NotificationTransport<T> {
+public class NotificationTransportImplEmail<T extends NotificationCategory>
+        implements NotificationTransport<T>, AutoCloseable {
 
     private final EmailService emailService;
-    private final String messageSubject;
+    private final CategoryTitles<T> subjects;
     private final String from;
     private final String to;
     private final String templateName;
+    @Nullable
+    private final String digestTemplateName;
+    @Nullable
+    private final NotificationDigest<T> digest;
 
     /**
-     * Constructor.
+     * Constructor. Sends an email per notification.
      *
      * @param emailService email service
      * @param originator   message originator, such as application name, must not be blank
@@ -39,20 +53,103 @@ public class NotificationTransportImplEmail<T extends NotificationCategory> impl
      */
     public NotificationTransportImplEmail(EmailService emailService, String originator, String from, String to,
             String templateName) {
+        this(emailService, originator, from, to, templateName, null);
+    }
 
+    /**
+     * Constructor.
+     *
+     * @param emailService   email service
+     * @param originator     message originator, such as application name, must not be blank
+     * @param from           'from' address
+     * @param to             'to' addresses (comma-separated)
+     * @param templateName   template name for
+     *                       {@link EmailService#sendHtmlWithTemplate(String, String, String, String, Map)}
+     * @param digestSettings if set, notifications are sent as digests rendered with
+     *                       {@link DigestSettings#templateName()}, which receives {@code title}, {@code messages}
+     *                       (each having {@code timestamp}, {@code message}, and {@code context}), and
+     *                       {@code droppedCount}
+     */
+    public NotificationTransportImplEmail(EmailService emailService, String originator, String from, String to,
+            String templateName, @Nullable DigestSettings digestSettings) {
         this.emailService = checkNotNull(emailService, "emailService");
-        this.messageSubject = checkNotBlank(originator, "messageSubject");
+        String messageSubject = checkNotBlank(originator, "messageSubject");
+        subjects = new CategoryTitles<>(category -> category.format(messageSubject));
         this.from = checkNotBlank(from, "from");
         this.to = checkNotBlank(to, "to");
         this.templateName = checkNotBlank(templateName, "templateName");
+
+        if (digestSettings == null) {
+            digestTemplateName = null;
+            digest = null;
+        } else {
+            digestTemplateName = digestSettings.templateName();
+            digest = new NotificationDigest<>(digestSettings, this::sendDigest);
+        }
     }
 
     @Override
     public void send(T category, String message, Map<String, ?> messageContext) {
         checkNotNull(category, "category");
+        Map<String, String> contextWithStringValues = stringifyValues(messageContext);
+
+        if (digest != null) {
+            digest.add(category, message, contextWithStringValues);
+            return;
+        }
+
+        String subject = subjects.get(category);
+        emailService.sendHtmlWithTemplate(from, to, Objects.toString(subject, ""), templateName,
+                createTemplateContext(subject, message, messageContext, contextWithStringValues));
+    }
+
+    /**
+     * Renders an email per notification and sends them all at once (see
+     * {@link EmailService#sendHtmlBatchWithTemplate(List)}). In digest mode, buffers the notifications.
+     */
+    @Override
+    public void sendBatch(List<Notification<T>> notifications) {
+        if (digest != null) {
+            NotificationTransport.super.sendBatch(notifications);
+            return;
+        }
+
+        var emails = new ArrayList<TemplatedHtmlEmail>(notifications.size());
+
+        for (Notification<T> notification : notifications) {
+            String subject = subjects.get(notification.category());
+
+            emails.add(new TemplatedHtmlEmail(from, to, Objects.toString(subject, ""), templateName,
+                    createTemplateContext(subject, notification.message(), notification.messageContext(),
+                            stringifyValues(notification.messageContext()))));
+        }
 
-        // Freemarker demands that, if map is to be iterated in template, all of its values be strings
-        Map<String, String> contextWithStringValues = (messageContext == null)
+        emailService.sendHtmlBatchWithTemplate(emails);
+    }
+
+    /**
+     * @return {@code false} in digest mode: notifications are buffered in memory, so a crash loses them
+     */
+    @Override
+    public boolean confirmsDelivery() {
+        return digest == null;
+    }
+
+    /**
+     * Flushes pending digests, if in digest mode.
+     */
+    @Override
+    public void close() {
+        if (digest != null) {
+            digest.close();
+        }
+    }
+
+    /**
+     * Freemarker demands that, if map is to be iterated in template, all of its values be strings.
+     */
+    private static Map<String, String> stringifyValues(@Nullable Map<String, ?> messageContext) {
+        return (messageContext == null)
                 ? Collections.emptyMap()
                 : messageContext.entrySet()
                         .stream()
@@ -60,17 +157,39 @@ public class NotificationTransportImplEmail<T extends NotificationCategory> impl
                         .collect(Collectors.toMap(
                                 Map.Entry::getKey,
                                 mapEntry -> TransformUtils.stringify(mapEntry.getValue(), true)));
+    }
 
+    private static Map<String, Object> createTemplateContext(String subject, String message,
+            @Nullable Map<String, ?> messageContext, Map<String, String> contextWithStringValues) {
         var context = (messageContext == null)
                 ? new HashMap<String, Object>()
                 : new HashMap<String, Object>(messageContext);
-        context.put("title", category.format(messageSubject));
+        context.put("title", subject);
         context.put("message", message);
         context.put("context", contextWithStringValues);
+        return context;
+    }
+
+    private void sendDigest(T category, NotificationDigest.Digest categoryDigest) {
+        // Freemarker-friendly: maps and strings only
+        List<Map<String, Object>> messages = new ArrayList<>(categoryDigest.messages().size());
+
+        for (NotificationDigest.Message message : categoryDigest.messages()) {
+            messages.add(Map.of(
+                    "timestamp", message.timestamp().toString(),
+                    "message", Objects.toString(message.message(), ""),
+                    "context", message.context()));
+        }
+
+        String subject = Objects.toString(subjects.get(category), "");
+        var context = new HashMap<String, Object>();
+        context.put("title", subject);
+        context.put("messages", messages);
+        context.put("droppedCount", categoryDigest.droppedCount());
 
         emailService.sendHtmlWithTemplate(from, to,
-                Objects.toString(context.get("title"), ""),
-                templateName, context);
+                subject + " (" + (messages.size() + categoryDigest.droppedCount()) + " notifications)",
+                digestTemplateName, context);
     }
 
 }
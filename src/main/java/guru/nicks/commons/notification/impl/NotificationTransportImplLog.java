@@ -7,32 +7,68 @@ import guru.nicks.commons.utils.TransformUtils;
 import jakarta.annotation.Nullable;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.MapUtils;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
 
-import java.util.Locale;
 import java.util.Map;
 
 import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
 
 /**
  * Appends messages to application log. Should always be enabled - at least one (fallback) transport should exist.
+ * <p>
+ * Nothing is formatted if the category's log level is disabled.
  *
  * @param <T> notification category type
  */
 @Slf4j
 public class NotificationTransportImplLog<T extends NotificationCategory> implements NotificationTransport<T> {
 
+    private final boolean structuredContext;
+
+    /**
+     * Creates transport which appends message context to log message text.
+     */
+    public NotificationTransportImplLog() {
+        this(false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param structuredContext if {@code true}, message context is emitted as SLF4J key-value pairs (which JSON log
+     *                          encoders serialize as separate fields) instead of being appended to log message text
+     */
+    public NotificationTransportImplLog(boolean structuredContext) {
+        this.structuredContext = structuredContext;
+    }
+
     @Override
     public void send(T category, @Nullable String message, Map<String, ?> messageContext) {
         checkNotNull(category, "category");
-        var context = "";
+        Level level = category.getLogLevel();
 
-        if (!MapUtils.isEmpty(messageContext)) {
-            context = " (" + TransformUtils.stringify(messageContext, false) + ")";
+        if (!log.isEnabledForLevel(level)) {
+            return;
         }
 
-        var text = String.format(Locale.US, "%s: %s%s", category.getDescription(), message, context);
+        if (structuredContext) {
+            LoggingEventBuilder event = log.atLevel(level);
 
-        switch (category.getLogLevel()) {
+            if (!MapUtils.isEmpty(messageContext)) {
+                messageContext.forEach(event::addKeyValue);
+            }
+
+            event.log(category.getDescription() + ": " + message);
+            return;
+        }
+
+        String text = MapUtils.isEmpty(messageContext)
+                ? category.getDescription() + ": " + message
+                : category.getDescription() + ": " + message
+                        + " (" + TransformUtils.stringify(messageContext, false) + ")";
+
+        switch (level) {
             case ERROR:
                 log.error(text);
                 break;
@@ -53,7 +89,6 @@ public class NotificationTransportImplLog<T extends NotificationCategory> implem
                 log.info(text);
                 break;
         }
-
     }
 
 }
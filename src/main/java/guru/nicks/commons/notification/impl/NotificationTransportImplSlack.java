@@ -1,19 +1,26 @@
 package guru.nicks.commons.notification.impl;
 
+import guru.nicks.commons.notification.Notification;
 import guru.nicks.commons.notification.NotificationCategory;
 import guru.nicks.commons.notification.NotificationTransport;
 import guru.nicks.commons.notification.service.LightweightSlackService;
+import guru.nicks.commons.notification.service.SlackMarkdownMessage;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.collections4.MapUtils;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotBlank;
 import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
 
 /**
- * Slack transport implementation.
+ * Slack transport implementation. Batches (see {@link #sendBatch(List)}) are coalesced into as few Slack messages as
+ * possible, if {@link LightweightSlackService} supports that. If the Slack service
+ * {@link LightweightSlackService#isBatching() batches} messages, the transport reports success as soon as the message
+ * is enqueued, therefore it doesn't {@link #confirmsDelivery() confirm delivery}.
  *
  * @param <T> notification category type
  */
@@ -21,7 +28,7 @@ public class NotificationTransportImplSlack<T extends NotificationCategory> impl
 
     private final LightweightSlackService slackService;
     private final ObjectMapper objectMapper;
-    private final String originator;
+    private final CategoryTitles<T> titles;
 
     /**
      * Constructor.
@@ -34,12 +41,37 @@ public class NotificationTransportImplSlack<T extends NotificationCategory> impl
             String originator) {
         this.slackService = checkNotNull(slackService, "slackService");
         this.objectMapper = checkNotNull(objectMapper, "objectMapper");
-        this.originator = checkNotBlank(originator, "originator");
+        checkNotBlank(originator, "originator");
+        titles = new CategoryTitles<>(category -> createTitle(category, originator));
     }
 
     @Override
     public void send(T category, String message, Map<String, ?> messageContext) {
         checkNotNull(category, "category");
+        slackService.sendMarkdown(titles.get(category), createText(message, messageContext));
+    }
+
+    @Override
+    public void sendBatch(List<Notification<T>> notifications) {
+        var messages = new ArrayList<SlackMarkdownMessage>(notifications.size());
+
+        for (Notification<T> notification : notifications) {
+            messages.add(new SlackMarkdownMessage(titles.get(notification.category()),
+                    createText(notification.message(), notification.messageContext())));
+        }
+
+        slackService.sendMarkdownBatch(messages);
+    }
+
+    /**
+     * @return {@code false} if the Slack service batches messages: they're enqueued in memory, so a crash loses them
+     */
+    @Override
+    public boolean confirmsDelivery() {
+        return !slackService.isBatching();
+    }
+
+    private String createText(String message, Map<String, ?> messageContext) {
         checkNotBlank(message, "message");
         var text = new StringBuilder(message);
 
@@ -56,16 +88,18 @@ public class NotificationTransportImplSlack<T extends NotificationCategory> impl
             text.append("\n```");
         }
 
+        return text.toString();
+    }
+
+    private static String createTitle(NotificationCategory category, String originator) {
         String title = category.format(originator);
 
         // add color
-        title = switch (category.getLogLevel()) {
+        return switch (category.getLogLevel()) {
             case ERROR -> ":exclamation: " + title;
             case WARN -> ":warning: " + title;
             default -> ":information_source: " + title;
         };
-
-        slackService.sendMarkdown(title, text.toString());
     }
 
 }
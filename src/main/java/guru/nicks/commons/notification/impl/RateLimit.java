@@ -0,0 +1,39 @@
+package guru.nicks.commons.notification.impl;
+
+import java.time.Duration;
+
+/**
+ * Rate limit: at most {@code permits} notifications per {@code period}, bursts of up to {@code permits} being allowed.
+ *
+ * @param permits number of notifications allowed per period
+ * @param period  period
+ */
+public record RateLimit(
+
+        int permits,
+        Duration period) {
+
+    /**
+     * Constructor.
+     *
+     * @throws IllegalArgumentException invalid arguments
+     */
+    public RateLimit {
+        if (permits < 1) {
+            throw new IllegalArgumentException("Rate limit permits must be positive");
+        }
+
+        if ((period == null) || !period.isPositive()) {
+            throw new IllegalArgumentException("Rate limit period must be positive");
+        }
+    }
+
+    public static RateLimit perSecond(int permits) {
+        return new RateLimit(permits, Duration.ofSeconds(1));
+    }
+
+    public static RateLimit perMinute(int permits) {
+        return new RateLimit(permits, Duration.ofMinutes(1));
+    }
+
+}
@@ -0,0 +1,274 @@
+package guru.nicks.commons.notification.impl;
+
+import jakarta.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of rendered templates, keyed by template name and template context. Bounded by both the number of
+ * entries and their total weight (length of rendered text).
+ * <p>
+ * The context is serialized, once per lookup, into a canonical string: map entries sorted, each value tagged with its
+ * class. The string is the key, so it's stable across equal contexts built independently, and mutating context values
+ * after rendering doesn't affect cached entries. Only contexts made of maps, collections, arrays, enums, and JDK values
+ * whose string form is their whole content (strings, numbers, booleans, {@code java.time} values, UUIDs) are cached,
+ * templates with other values (such as beans) are rendered every time.
+ */
+public class RenderedTemplateCache {
+
+    /**
+     * Deeper contexts (possibly self-referencing) are not cached.
+     */
+    private static final int MAX_CONTEXT_DEPTH = 16;
+
+    private final int maxEntries;
+    private final long maxWeight;
+
+    /**
+     * Access-ordered, i.e. LRU. All access must be synchronized on this map.
+     */
+    private final LinkedHashMap<Key, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param maxEntries maximum number of rendered templates
+     * @param maxWeight  maximum total length of rendered templates (in characters)
+     * @throws IllegalArgumentException invalid arguments
+     */
+    public RenderedTemplateCache(int maxEntries, long maxWeight) {
+        if ((maxEntries < 1) || (maxWeight < 1)) {
+            throw new IllegalArgumentException("Rendered template cache size and weight must be positive");
+        }
+
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns cached rendered template or renders it. Concurrent misses for the same key may render the template more
+     * than once, but rendering is never done while holding the cache lock. Templates whose context can't be
+     * serialized canonically (see class description) are rendered without being cached, which counts as a miss.
+     *
+     * @param templateName    template name
+     * @param templateContext template context
+     * @param renderer        renders the template on cache miss
+     * @return rendered template
+     */
+    public String getOrRender(String templateName, Map<?, ?> templateContext, Supplier<String> renderer) {
+        String canonicalContext = canonicalize(templateContext);
+
+        if (canonicalContext == null) {
+            missCount.increment();
+            return renderer.get();
+        }
+
+        var key = new Key(templateName, canonicalContext);
+        String rendered;
+
+        synchronized (entries) {
+            rendered = entries.get(key);
+        }
+
+        if (rendered != null) {
+            hitCount.increment();
+            return rendered;
+        }
+
+        missCount.increment();
+        rendered = renderer.get();
+
+        // too heavy to be cached at all
+        if (rendered.length() > maxWeight) {
+            return rendered;
+        }
+
+        synchronized (entries) {
+            String previous = entries.put(key, rendered);
+            totalWeight += rendered.length() - ((previous == null) ? 0 : previous.length());
+            evictIfNeeded();
+        }
+
+        return rendered;
+    }
+
+    /**
+     * @return cache statistics
+     */
+    public Stats getStats() {
+        synchronized (entries) {
+            return new Stats(hitCount.sum(), missCount.sum(), evictionCount.sum(), entries.size(), totalWeight);
+        }
+    }
+
+    /**
+     * Must be called while holding the {@link #entries} lock.
+     */
+    private void evictIfNeeded() {
+        Iterator<String> iterator = entries.values().iterator();
+
+        // the least recently used entries go first
+        while (((entries.size() > maxEntries) || (totalWeight > maxWeight)) && iterator.hasNext()) {
+            totalWeight -= iterator.next().length();
+            iterator.remove();
+            evictionCount.increment();
+        }
+    }
+
+    /**
+     * @return canonical form of the context, {@code null} if it contains values which can't be serialized canonically
+     */
+    @Nullable
+    private static String canonicalize(Map<?, ?> templateContext) {
+        var buffer = new StringBuilder(256);
+
+        return appendCanonical(buffer, templateContext, 0)
+                ? buffer.toString()
+                : null;
+    }
+
+    private static boolean appendCanonical(StringBuilder buffer, @Nullable Object value, int depth) {
+        if (depth > MAX_CONTEXT_DEPTH) {
+            return false;
+        }
+
+        if (value == null) {
+            buffer.append('~');
+            return true;
+        }
+
+        if (value instanceof Map<?, ?> map) {
+            // independent of map iteration order
+            var entries = new ArrayList<String>(map.size());
+
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                var entryBuffer = new StringBuilder();
+
+                if (!appendCanonical(entryBuffer, entry.getKey(), depth + 1)) {
+                    return false;
+                }
+
+                entryBuffer.append('=');
+
+                if (!appendCanonical(entryBuffer, entry.getValue(), depth + 1)) {
+                    return false;
+                }
+
+                entries.add(entryBuffer.toString());
+            }
+
+            entries.sort(null);
+            buffer.append('{');
+            entries.forEach(entry -> buffer.append(entry).append(','));
+            buffer.append('}');
+            return true;
+        }
+
+        if ((value instanceof Collection<?>) || (value instanceof Object[])) {
+            Iterable<?> elements = (value instanceof Object[] array)
+                    ? Arrays.asList(array)
+                    : (Collection<?>) value;
+            buffer.append('[');
+
+            for (Object element : elements) {
+                if (!appendCanonical(buffer, element, depth + 1)) {
+                    return false;
+                }
+
+                buffer.append(',');
+            }
+
+            buffer.append(']');
+            return true;
+        }
+
+        if (!isScalar(value)) {
+            return false;
+        }
+
+        // class name and length prefix make the form unambiguous
+        String text = (value instanceof Enum<?> constant)
+                ? constant.name()
+                : value.toString();
+        buffer.append(value.getClass().getName())
+                .append(' ')
+                .append(text.length())
+                .append(':')
+                .append(text);
+        return true;
+    }
+
+    private static boolean isScalar(Object value) {
+        if (value instanceof Enum<?>) {
+            return true;
+        }
+
+        // JDK classes only: string form of custom subclasses may omit some of their content
+        String packageName = value.getClass().getPackageName();
+
+        if (!packageName.startsWith("java.")) {
+            return false;
+        }
+
+        return (value instanceof CharSequence)
+                || (value instanceof Number)
+                || (value instanceof Boolean)
+                || (value instanceof Character)
+                || (value instanceof UUID)
+                || packageName.equals("java.time");
+    }
+
+    /**
+     * @param templateName     template name
+     * @param canonicalContext canonical form of template context
+     */
+    private record Key(
+
+            String templateName,
+            String canonicalContext) {
+    }
+
+    /**
+     * Cache statistics.
+     *
+     * @param hitCount      number of cache hits
+     * @param missCount     number of cache misses
+     * @param evictionCount number of evicted entries
+     * @param size          current number of entries
+     * @param weight        current total length of rendered templates
+     */
+    public record Stats(
+
+            long hitCount,
+            long missCount,
+            long evictionCount,
+            int size,
+            long weight) {
+
+        /**
+         * @return ratio of hits to all requests, 1 if there were no requests
+         */
+        public double hitRate() {
+            long requestCount = hitCount + missCount;
+
+            return (requestCount == 0)
+                    ? 1.0
+                    : (double) hitCount / requestCount;
+        }
+
+    }
+
+}
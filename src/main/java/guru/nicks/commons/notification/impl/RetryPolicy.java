@@ -0,0 +1,153 @@
+package guru.nicks.commons.notification.impl;
+
+import jakarta.annotation.Nullable;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.springframework.mail.MailSendException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * Retry policy: exponential backoff with full jitter (each delay is random, between zero and the exponential bound),
+ * limited by the number of attempts and, optionally, by the total time budget.
+ *
+ * @param maxAttempts    maximum number of attempts, including the first one
+ * @param initialBackoff upper bound of the delay before the second attempt
+ * @param maxBackoff     upper bound of any delay
+ * @param multiplier     growth factor of the delay bound (at least 1)
+ * @param deadline       if set, no attempt starts later than this after the first one
+ * @param retryable      tells if an exception is worth retrying, such as {@link #isTransient(Throwable)}
+ */
+public record RetryPolicy(
+
+        int maxAttempts,
+        Duration initialBackoff,
+        Duration maxBackoff,
+        double multiplier,
+        @Nullable Duration deadline,
+        Predicate<Throwable> retryable) {
+
+    /**
+     * Constructor.
+     *
+     * @throws IllegalArgumentException invalid arguments
+     */
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Retry max attempts must be positive");
+        }
+
+        if ((initialBackoff == null) || !initialBackoff.isPositive()
+                || (maxBackoff == null) || (maxBackoff.compareTo(initialBackoff) < 0)) {
+            throw new IllegalArgumentException("Retry backoff must be positive, max backoff must not be less than "
+                    + "initial one");
+        }
+
+        if (!(multiplier >= 1)) {
+            throw new IllegalArgumentException("Retry backoff multiplier must be at least 1");
+        }
+
+        if ((deadline != null) && !deadline.isPositive()) {
+            throw new IllegalArgumentException("Retry deadline must be positive");
+        }
+
+        if (retryable == null) {
+            throw new IllegalArgumentException("Retryable exception classifier must be set");
+        }
+    }
+
+    /**
+     * Creates policy doubling the delay bound after each attempt and retrying {@link #isTransient(Throwable) transient}
+     * errors only, without deadline.
+     *
+     * @param maxAttempts    maximum number of attempts, including the first one
+     * @param initialBackoff upper bound of the delay before the second attempt
+     * @param maxBackoff     upper bound of any delay
+     * @return policy
+     */
+    public static RetryPolicy exponential(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+        return new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, 2, null, RetryPolicy::isTransient);
+    }
+
+    /**
+     * Default classifier of retryable exceptions. Checks the whole cause chain for:
+     * <ul>
+     *     <li>I/O errors and timeouts</li>
+     *     <li>HTTP 5xx and 429 (Too Many Requests) responses</li>
+     *     <li>SMTP 4xx replies (transient negative completion, such as greylisting)</li>
+     * </ul>
+     *
+     * @param t exception
+     * @return {@code true} if the error is likely to go away on its own
+     */
+    public static boolean isTransient(@Nullable Throwable t) {
+        // cause chains can be cyclic
+        for (int depth = 0; (t != null) && (depth < 10); depth++) {
+            if ((t instanceof IOException) || (t instanceof TimeoutException)) {
+                return true;
+            }
+
+            if (t instanceof RestClientResponseException e) {
+                return e.getStatusCode().is5xxServerError() || (e.getStatusCode().value() == 429);
+            }
+
+            if (t instanceof SMTPSendFailedException e) {
+                return isTransientSmtpReply(e.getReturnCode());
+            }
+
+            if (t instanceof SMTPAddressFailedException e) {
+                return isTransientSmtpReply(e.getReturnCode());
+            }
+
+            // JavaMailSenderImpl reports per-message errors without setting the cause
+            if ((t instanceof MailSendException e) && (e.getCause() == null)) {
+                return e.getFailedMessages()
+                        .values()
+                        .stream()
+                        .anyMatch(RetryPolicy::isTransient);
+            }
+
+            // for MessagingException, that's the nested exception
+            t = t.getCause();
+        }
+
+        return false;
+    }
+
+    /**
+     * Computes random delay before the next attempt.
+     *
+     * @param attempt number of the attempt just failed, starting with 1
+     * @return delay in nanoseconds
+     */
+    public long backoffNanos(int attempt) {
+        double bound = initialBackoff.toNanos() * Math.pow(multiplier, attempt - 1);
+        long cappedBound = (long) Math.min(bound, maxBackoff.toNanos());
+        return ThreadLocalRandom.current().nextLong(cappedBound + 1);
+    }
+
+    /**
+     * Checks if another attempt should be made.
+     *
+     * @param attempt      number of the attempt just failed, starting with 1
+     * @param error        error of the failed attempt
+     * @param elapsedNanos time since the first attempt until the next one would start (i.e. including the backoff)
+     * @return {@code true} if the next attempt should be made
+     */
+    public boolean shouldRetry(int attempt, @Nullable Throwable error, long elapsedNanos) {
+        return (attempt < maxAttempts)
+                && ((deadline == null) || (elapsedNanos <= deadline.toNanos()))
+                && (error != null)
+                && retryable.test(error);
+    }
+
+    private static boolean isTransientSmtpReply(int returnCode) {
+        return (returnCode >= 400) && (returnCode < 500);
+    }
+
+}
@@ -0,0 +1,151 @@
+package guru.nicks.commons.notification.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes Slack web hook payloads as UTF-8 JSON bytes. Block Kit messages are streamed directly through
+ * {@link JsonGenerator} - no intermediate maps, strings, or charset conversions are involved. Each platform thread
+ * reuses its own output buffer (unless a large payload has grown it). Virtual threads, usually running a single send,
+ * use a fresh buffer each time.
+ * <p>
+ * Thread-safe.
+ */
+public class SlackPayloadWriter {
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    /**
+     * Buffers grown beyond this (by large payloads) are not retained.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<ByteArrayBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new ByteArrayBuilder(INITIAL_BUFFER_SIZE));
+
+    private static final String TYPE = "type";
+    private static final String TEXT = "text";
+    private static final String BLOCKS = "blocks";
+    private static final String MRKDWN = "mrkdwn";
+    private static final String PLAIN_TEXT = "plain_text";
+    private static final String EMOJI = "emoji";
+    private static final String HEADER = "header";
+    private static final String SECTION = "section";
+
+    private final ObjectWriter objectWriter;
+
+    /**
+     * Constructor.
+     *
+     * @param objectMapper JSON object mapper (its writer is created once and reused)
+     */
+    public SlackPayloadWriter(ObjectMapper objectMapper) {
+        objectWriter = objectMapper.writer();
+    }
+
+    /**
+     * Serializes arbitrary value, such as a map of web hook fields.
+     *
+     * @param value value to serialize
+     * @return JSON bytes
+     * @throws IllegalArgumentException serialization error
+     */
+    public byte[] writeValue(Object value) {
+        return write(generator -> objectWriter.writeValue(generator, value));
+    }
+
+    /**
+     * Streams Block Kit message: <code>{"blocks": [...]}</code>.
+     *
+     * @param blocks blocks
+     * @return JSON bytes
+     * @throws IllegalArgumentException serialization error
+     */
+    public byte[] writeBlocks(List<Block> blocks) {
+        return write(generator -> {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart(BLOCKS);
+
+            for (Block block : blocks) {
+                writeBlock(generator, block);
+            }
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+        });
+    }
+
+    private void writeBlock(JsonGenerator generator, Block block) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField(TYPE, block.header() ? HEADER : SECTION);
+
+        generator.writeObjectFieldStart(TEXT);
+        generator.writeStringField(TYPE, block.header() ? PLAIN_TEXT : MRKDWN);
+        generator.writeStringField(TEXT, block.text());
+
+        if (block.header()) {
+            generator.writeBooleanField(EMOJI, true);
+        }
+
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    private byte[] write(GeneratorCallback callback) {
+        // thread-local buffers of short-lived virtual threads would never be reused
+        boolean reusable = !Thread.currentThread().isVirtual();
+        ByteArrayBuilder buffer = reusable
+                ? BUFFER.get()
+                : new ByteArrayBuilder(INITIAL_BUFFER_SIZE);
+        buffer.reset();
+
+        try (JsonGenerator generator = objectWriter.createGenerator(buffer)) {
+            callback.write(generator);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Error serializing to JSON: " + e.getMessage(), e);
+        }
+
+        byte[] json = buffer.toByteArray();
+
+        // the next call will start with a buffer of the initial size
+        if (reusable && (json.length > MAX_RETAINED_BUFFER_SIZE)) {
+            BUFFER.remove();
+        }
+
+        return json;
+    }
+
+    @FunctionalInterface
+    private interface GeneratorCallback {
+
+        void write(JsonGenerator generator) throws IOException;
+
+    }
+
+    /**
+     * Block Kit block: either a header (plain text with emojis) or a section (Markdown).
+     *
+     * @param header {@code true} for header block, {@code false} for section block
+     * @param text   block text
+     */
+    public record Block(
+
+            boolean header,
+            String text) {
+
+        public static Block header(String text) {
+            return new Block(true, text);
+        }
+
+        public static Block section(String text) {
+            return new Block(false, text);
+        }
+
+    }
+
+}
@@ -0,0 +1,130 @@
+package guru.nicks.commons.notification.impl;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits Markdown text into chunks not longer than Slack's section text limit, preferably on line boundaries. A code
+ * fence (<code>```</code>) open at a chunk boundary is closed at the end of the chunk and reopened at the beginning of
+ * the next one, so each chunk renders on its own. Lines longer than a chunk are split wherever needed.
+ * <p>
+ * The text is scanned once, each character being copied once - directly into its chunk.
+ */
+@UtilityClass
+public class SlackTextSplitter {
+
+    private static final String FENCE = "```";
+
+    /**
+     * Appended to a chunk ending inside a code fence. Its length is reserved in each such chunk.
+     */
+    private static final String FENCE_CLOSE = "\n" + FENCE;
+
+    /**
+     * Prepended to a chunk starting inside a code fence.
+     */
+    private static final String FENCE_OPEN = FENCE + "\n";
+
+    /**
+     * Splits text.
+     *
+     * @param text      text to split
+     * @param maxLength maximum chunk length, must be big enough to hold fence markers and at least one character
+     * @return chunks (at least one), in order
+     * @throws IllegalArgumentException {@code maxLength} is too small
+     */
+    public static List<String> split(String text, int maxLength) {
+        if (maxLength <= FENCE_OPEN.length() + FENCE_CLOSE.length() + 1) {
+            throw new IllegalArgumentException("Max chunk length is too small: " + maxLength);
+        }
+
+        if (text.length() <= maxLength) {
+            return List.of(text);
+        }
+
+        var chunks = new ArrayList<String>(text.length() / maxLength + 2);
+        var chunk = new StringBuilder(maxLength);
+        boolean inFence = false;
+        int lineStart = 0;
+
+        while (lineStart < text.length()) {
+            int newLine = text.indexOf('\n', lineStart);
+            // the line includes its line break, if any
+            int lineEnd = (newLine < 0) ? text.length() : (newLine + 1);
+            boolean fenceLine = isFence(text, lineStart, lineEnd);
+            boolean inFenceAfterLine = fenceLine != inFence;
+            // room for the fence close marker, if the chunk may end inside a code fence
+            int reserve = (inFence || inFenceAfterLine) ? FENCE_CLOSE.length() : 0;
+
+            // chunk can't hold the line - start new one, unless it's empty
+            if ((chunk.length() + (lineEnd - lineStart) + reserve > maxLength) && !isEmpty(chunk, inFence)) {
+                finishChunk(chunks, chunk, inFence);
+            }
+
+            // line longer than the whole chunk - split it wherever needed
+            int from = lineStart;
+
+            while (chunk.length() + (lineEnd - from) + reserve > maxLength) {
+                int to = from + maxLength - chunk.length() - reserve;
+
+                // don't split surrogate pairs
+                if (Character.isHighSurrogate(text.charAt(to - 1))) {
+                    to--;
+                }
+
+                chunk.append(text, from, to);
+                finishChunk(chunks, chunk, inFence);
+                from = to;
+            }
+
+            chunk.append(text, from, lineEnd);
+            inFence = inFenceAfterLine;
+            lineStart = lineEnd;
+        }
+
+        if (!isEmpty(chunk, inFence)) {
+            chunks.add(chunk.toString());
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Adds chunk to the list (closing the code fence, if needed), then resets it (reopening the code fence, if needed).
+     */
+    private static void finishChunk(List<String> chunks, StringBuilder chunk, boolean inFence) {
+        if (inFence) {
+            chunk.append(FENCE_CLOSE);
+        }
+
+        chunks.add(chunk.toString());
+        chunk.setLength(0);
+
+        if (inFence) {
+            chunk.append(FENCE_OPEN);
+        }
+    }
+
+    /**
+     * @return {@code true} if chunk contains nothing but (maybe) the reopened code fence
+     */
+    private static boolean isEmpty(StringBuilder chunk, boolean inFence) {
+        return chunk.length() <= (inFence ? FENCE_OPEN.length() : 0);
+    }
+
+    /**
+     * @return {@code true} if the line, leading whitespace aside, starts with a code fence marker
+     */
+    private static boolean isFence(String text, int lineStart, int lineEnd) {
+        int i = lineStart;
+
+        while ((i < lineEnd) && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) {
+            i++;
+        }
+
+        return text.startsWith(FENCE, i) && (i + FENCE.length() <= lineEnd);
+    }
+
+}
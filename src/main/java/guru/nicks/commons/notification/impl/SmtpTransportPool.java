@@ -0,0 +1,219 @@
+package guru.nicks.commons.notification.impl;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Keeps connected and authenticated SMTP {@link Transport}s alive, so sending an email doesn't involve a new TCP
+ * connection, TLS handshake, and authentication. Connections are health-checked (see {@link Transport#isConnected()},
+ * which, for SMTP, issues a {@code NOOP} command) before reuse, and closed after being idle for too long.
+ * <p>
+ * Connection parameters (host, port, credentials, session properties) are taken from {@link JavaMailSenderImpl}.
+ */
+@Slf4j
+public class SmtpTransportPool implements AutoCloseable {
+
+    /**
+     * How long to wait for a free connection if all of them are busy.
+     */
+    private static final Duration BORROW_TIMEOUT = Duration.ofSeconds(30);
+
+    private final JavaMailSenderImpl mailSender;
+    private final Semaphore connectionPermits;
+    private final long maxIdleNanos;
+
+    /**
+     * Most recently used connections go first - they're the least likely to have been closed by the server.
+     */
+    private final BlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final ScheduledExecutorService evictor;
+
+    private volatile boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param mailSender     source of connection parameters
+     * @param maxConnections maximum number of simultaneously open connections
+     * @param maxIdleTime    connections idle for longer than this are closed
+     * @throws IllegalArgumentException invalid arguments
+     */
+    public SmtpTransportPool(JavaMailSenderImpl mailSender, int maxConnections, Duration maxIdleTime) {
+        this.mailSender = checkNotNull(mailSender, "mailSender");
+
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("Maximum number of SMTP connections must be positive");
+        }
+
+        if ((maxIdleTime == null) || !maxIdleTime.isPositive()) {
+            throw new IllegalArgumentException("SMTP connection idle time must be positive");
+        }
+
+        connectionPermits = new Semaphore(maxConnections);
+        maxIdleNanos = maxIdleTime.toNanos();
+
+        long evictionIntervalMillis = Math.max(1, maxIdleTime.toMillis() / 2);
+        evictor = NotificationThreads.newScheduler("smtp-pool-evictor");
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections,
+                evictionIntervalMillis, evictionIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends messages over a single pooled connection.
+     *
+     * @param messages messages to send
+     * @throws MailSendException no connection available, or sending failed
+     */
+    public void send(List<MimeMessage> messages) {
+        if (closed) {
+            throw new MailSendException("SMTP connection pool is closed");
+        }
+
+        try {
+            if (!connectionPermits.tryAcquire(BORROW_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new MailSendException("No SMTP connection available within " + BORROW_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while waiting for SMTP connection", e);
+        }
+
+        try {
+            sendViaPooledConnection(messages);
+        } finally {
+            connectionPermits.release();
+        }
+    }
+
+    /**
+     * @return number of idle connections
+     */
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    /**
+     * Closes all idle connections. Connections in use are closed when they're returned to the pool.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+
+        PooledConnection connection;
+        while ((connection = idleConnections.pollFirst()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private void sendViaPooledConnection(List<MimeMessage> messages) {
+        PooledConnection connection;
+
+        try {
+            connection = borrowConnection();
+        } catch (MessagingException e) {
+            throw new MailSendException("Failed to connect to SMTP server: " + e.getMessage(), e);
+        }
+
+        try {
+            for (MimeMessage message : messages) {
+                if (message.getSentDate() == null) {
+                    message.setSentDate(new Date());
+                }
+
+                message.saveChanges();
+                connection.transport().sendMessage(message, message.getAllRecipients());
+            }
+        } catch (MessagingException e) {
+            // the connection state is unknown - don't reuse it
+            closeQuietly(connection);
+            throw new MailSendException("Failed to send email: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            // same as above, otherwise the connection would leak
+            closeQuietly(connection);
+            throw e;
+        }
+
+        returnConnection(connection);
+    }
+
+    private PooledConnection borrowConnection() throws MessagingException {
+        PooledConnection connection;
+
+        while ((connection = idleConnections.pollFirst()) != null) {
+            if (connection.transport().isConnected()) {
+                return connection;
+            }
+
+            log.debug("Discarding broken SMTP connection");
+            closeQuietly(connection);
+        }
+
+        log.debug("Opening SMTP connection to {}:{}", mailSender.getHost(), mailSender.getPort());
+        Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+        transport.connect(mailSender.getHost(), mailSender.getPort(),
+                mailSender.getUsername(), mailSender.getPassword());
+        return new PooledConnection(transport, System.nanoTime());
+    }
+
+    private void returnConnection(PooledConnection connection) {
+        if (closed) {
+            closeQuietly(connection);
+            return;
+        }
+
+        var idleConnection = new PooledConnection(connection.transport(), System.nanoTime());
+        idleConnections.offerFirst(idleConnection);
+
+        // closed (and maybe drained already) after the check above - the connection would never be closed by anyone
+        if (closed && idleConnections.remove(idleConnection)) {
+            closeQuietly(idleConnection);
+        }
+    }
+
+    private void evictIdleConnections() {
+        long now = System.nanoTime();
+        PooledConnection connection;
+
+        // the least recently used connections are at the tail
+        while ((connection = idleConnections.pollLast()) != null) {
+            if (now - connection.lastUsedAt() <= maxIdleNanos) {
+                idleConnections.offerLast(connection);
+                return;
+            }
+
+            log.debug("Closing idle SMTP connection");
+            closeQuietly(connection);
+        }
+    }
+
+    private void closeQuietly(PooledConnection connection) {
+        try {
+            connection.transport().close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection: {}", e.getMessage());
+        }
+    }
+
+    private record PooledConnection(
+
+            Transport transport,
+            long lastUsedAt) {
+    }
+
+}
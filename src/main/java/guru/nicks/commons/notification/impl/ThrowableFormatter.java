@@ -0,0 +1,226 @@
+package guru.nicks.commons.notification.impl;
+
+import jakarta.annotation.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Formats exceptions as their {@link Throwable#toString()} followed by compact stack traces: frames of excluded
+ * packages (reflection, proxies, etc.) are collapsed, the number of frames and causes is limited.
+ * <p>
+ * During exception storms, the same stack trace is formatted over and over again. Therefore, stack traces (but not
+ * exception messages, which may vary) are memoized, keyed by a cheap fingerprint: exception class, stack depth, and
+ * hash of the top frames. The fingerprint covers at least all the printed frames, so stack traces differing only in
+ * frames which aren't printed anyway share the cached text. The cache is bounded: when it's full, new stack traces are
+ * formatted without being cached. Each thread formats into its own reusable buffer.
+ * <p>
+ * Thread-safe.
+ */
+public class ThrowableFormatter {
+
+    /**
+     * Frames of these packages are collapsed by {@link #withDefaults()}.
+     */
+    public static final List<String> DEFAULT_EXCLUDED_PACKAGES = List.of(
+            "java.lang.reflect.", "jdk.internal.reflect.", "sun.reflect.",
+            "org.springframework.aop.", "org.springframework.cglib.", "net.bytebuddy.");
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    /**
+     * Buffers grown beyond this (by huge stack traces) are not retained.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_BUFFER_SIZE));
+
+    private final int fingerprintDepth;
+    private final int maxFrames;
+    private final int maxCauses;
+    private final int cacheCapacity;
+    private final String[] excludedPackages;
+    private final Map<Fingerprint, String> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param fingerprintDepth number of top frames (excluded ones aside) the fingerprint is computed from, must not be
+     *                         less than {@code maxFrames}
+     * @param maxFrames        maximum number of frames (excluded ones aside) printed per exception
+     * @param maxCauses        maximum number of causes printed
+     * @param cacheCapacity    maximum number of cached stack traces
+     * @param excludedPackages prefixes of class names whose frames are collapsed
+     * @throws IllegalArgumentException invalid arguments
+     */
+    public ThrowableFormatter(int fingerprintDepth, int maxFrames, int maxCauses, int cacheCapacity,
+            List<String> excludedPackages) {
+        if ((fingerprintDepth < 1) || (maxFrames < 1) || (maxCauses < 0) || (cacheCapacity < 0)) {
+            throw new IllegalArgumentException("Fingerprint depth and max frames must be positive, max causes and "
+                    + "cache capacity must not be negative");
+        }
+
+        // otherwise stack traces differing in printed frames would share the cached text
+        if (fingerprintDepth < maxFrames) {
+            throw new IllegalArgumentException("Fingerprint depth must not be less than max frames");
+        }
+
+        if (excludedPackages == null) {
+            throw new IllegalArgumentException("Excluded packages must be set");
+        }
+
+        this.fingerprintDepth = fingerprintDepth;
+        this.maxFrames = maxFrames;
+        this.maxCauses = maxCauses;
+        this.cacheCapacity = cacheCapacity;
+        this.excludedPackages = excludedPackages.toArray(String[]::new);
+    }
+
+    /**
+     * Creates formatter fingerprinting 20 top frames, printing up to 20 frames per exception and up to 5 causes,
+     * caching up to 1000 stack traces, and collapsing {@link #DEFAULT_EXCLUDED_PACKAGES}.
+     *
+     * @return formatter
+     */
+    public static ThrowableFormatter withDefaults() {
+        return new ThrowableFormatter(20, 20, 5, 1000, DEFAULT_EXCLUDED_PACKAGES);
+    }
+
+    /**
+     * Formats exception and its causes.
+     *
+     * @param t exception
+     * @return formatted exception, empty string for {@code null}
+     */
+    public String format(@Nullable Throwable t) {
+        if (t == null) {
+            return "";
+        }
+
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+
+        try {
+            Throwable current = t;
+
+            for (int causeCount = 0; current != null; causeCount++) {
+                if (causeCount > 0) {
+                    buffer.append("\nCaused by: ");
+                }
+
+                if (causeCount > maxCauses) {
+                    buffer.append("...");
+                    break;
+                }
+
+                buffer.append(current);
+                appendStackTrace(buffer, current);
+
+                // self-referencing causes are possible
+                current = (current.getCause() == current) ? null : current.getCause();
+            }
+
+            return buffer.toString();
+        } finally {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                BUFFER.remove();
+            }
+        }
+    }
+
+    /**
+     * @return number of cached stack traces
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    private void appendStackTrace(StringBuilder buffer, Throwable t) {
+        StackTraceElement[] frames = t.getStackTrace();
+        var fingerprint = new Fingerprint(t.getClass(), frames.length, hash(frames));
+        String stackTrace = cache.get(fingerprint);
+
+        if (stackTrace != null) {
+            buffer.append(stackTrace);
+            return;
+        }
+
+        int start = buffer.length();
+        appendFrames(buffer, frames);
+
+        if (cache.size() < cacheCapacity) {
+            cache.putIfAbsent(fingerprint, buffer.substring(start));
+        }
+    }
+
+    /**
+     * Hashes top frames, including the excluded ones in between (they are counted in the formatted text), the same way
+     * {@link #appendFrames(StringBuilder, StackTraceElement[])} walks them.
+     */
+    private long hash(StackTraceElement[] frames) {
+        long hash = 17;
+
+        for (int i = 0, hashedCount = 0; (i < frames.length) && (hashedCount < fingerprintDepth); i++) {
+            StackTraceElement frame = frames[i];
+            hash = hash * 31 + frame.hashCode();
+
+            if (!isExcluded(frame.getClassName())) {
+                hashedCount++;
+            }
+        }
+
+        return hash;
+    }
+
+    private void appendFrames(StringBuilder buffer, StackTraceElement[] frames) {
+        int printedCount = 0;
+        int excludedCount = 0;
+        int i = 0;
+
+        for (; (i < frames.length) && (printedCount < maxFrames); i++) {
+            StackTraceElement frame = frames[i];
+
+            if (isExcluded(frame.getClassName())) {
+                excludedCount++;
+                continue;
+            }
+
+            appendExcludedCount(buffer, excludedCount);
+            excludedCount = 0;
+            buffer.append("\n\tat ").append(frame);
+            printedCount++;
+        }
+
+        appendExcludedCount(buffer, excludedCount);
+
+        if (i < frames.length) {
+            buffer.append("\n\t... ").append(frames.length - i).append(" more");
+        }
+    }
+
+    private static void appendExcludedCount(StringBuilder buffer, int excludedCount) {
+        if (excludedCount > 0) {
+            buffer.append("\n\t... ").append(excludedCount).append(" filtered");
+        }
+    }
+
+    private boolean isExcluded(String className) {
+        for (String excludedPackage : excludedPackages) {
+            if (className.startsWith(excludedPackage)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private record Fingerprint(
+
+            Class<?> exceptionClass,
+            int depth,
+            long topFramesHash) {
+    }
+
+}
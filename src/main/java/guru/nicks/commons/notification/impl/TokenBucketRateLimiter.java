@@ -0,0 +1,65 @@
+package guru.nicks.commons.notification.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free token bucket, implemented as GCRA (Generic Cell Rate Algorithm): the whole bucket state is a single
+ * timestamp - the theoretical arrival time of the next permit - updated with CAS. Acquiring a permit costs a
+ * {@link System#nanoTime()} call and (usually) one CAS, rejecting it costs no writes at all (except for the statistics
+ * counter).
+ */
+public class TokenBucketRateLimiter {
+
+    private final long nanosPerPermit;
+    private final long burstToleranceNanos;
+
+    /**
+     * Theoretical arrival time of the next permit.
+     */
+    private final AtomicLong nextPermitAt;
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Constructor. The bucket is full initially.
+     *
+     * @param rateLimit rate limit
+     */
+    public TokenBucketRateLimiter(RateLimit rateLimit) {
+        nanosPerPermit = Math.max(1, rateLimit.period().toNanos() / rateLimit.permits());
+        burstToleranceNanos = nanosPerPermit * (rateLimit.permits() - 1);
+        nextPermitAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Acquires a permit if one is available, never blocks.
+     *
+     * @return {@code true} if permit has been acquired
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+
+        while (true) {
+            long permitAt = nextPermitAt.get();
+            // bucket can't hold more than 'permits' tokens - time spent while full is lost
+            long base = (permitAt - now > 0) ? permitAt : now;
+
+            if (base - now > burstToleranceNanos) {
+                rejectedCount.increment();
+                return false;
+            }
+
+            if (nextPermitAt.compareAndSet(permitAt, base + nanosPerPermit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return number of rejected {@link #tryAcquire()} calls
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+}
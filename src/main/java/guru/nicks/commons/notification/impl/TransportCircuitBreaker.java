@@ -0,0 +1,205 @@
+package guru.nicks.commons.notification.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free circuit breaker (see {@link CircuitBreakerPolicy}). The sliding window is a ring of time buckets, each
+ * packed into a single {@code long} - <code>[bucket epoch: 32 bits][failures: 16 bits][successes: 16 bits]</code> -
+ * and updated with CAS. A bucket belonging to an older epoch is simply overwritten, so nothing needs to be evicted.
+ * <p>
+ * Callers must report the outcome of each permitted call, passing back the {@link Permit} returned by
+ * {@link #tryAcquire()}, to {@link #onSuccess(Permit)}, {@link #onFailure(Permit)}, or (if the call hasn't been made
+ * after all) {@link #onCancelled(Permit)}. Only the probe's own outcome changes the half-open state: calls started
+ * before the circuit opened may finish while the probe is in flight.
+ */
+@Slf4j
+public class TransportCircuitBreaker {
+
+    private static final int BUCKET_COUNT = 10;
+    private static final long MAX_COUNT = 0xFFFF;
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final String name;
+    private final CircuitBreakerPolicy policy;
+    private final long bucketNanos;
+    private final long openNanos;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    /**
+     * When the open circuit lets a probe call through, {@link #CLOSED} if the circuit is closed.
+     */
+    private final AtomicLong openUntil = new AtomicLong(CLOSED);
+    private final AtomicBoolean probeInFlight = new AtomicBoolean();
+
+    /**
+     * Constructor.
+     *
+     * @param name   name for logging purposes
+     * @param policy circuit breaker policy
+     */
+    public TransportCircuitBreaker(String name, CircuitBreakerPolicy policy) {
+        this.name = name;
+        this.policy = policy;
+        bucketNanos = Math.max(1, policy.window().toNanos() / BUCKET_COUNT);
+        openNanos = policy.openDuration().toNanos();
+    }
+
+    /**
+     * Checks if a call is permitted: always in closed state, never in open state, once in half-open state (the
+     * probe).
+     *
+     * @return permit to be passed to {@link #onSuccess(Permit)}, {@link #onFailure(Permit)}, or
+     *         {@link #onCancelled(Permit)}; {@link Permit#REJECTED} if the call is not permitted
+     */
+    public Permit tryAcquire() {
+        long until = openUntil.get();
+
+        if (until == CLOSED) {
+            return Permit.CALL;
+        }
+
+        if (until - System.nanoTime() > 0) {
+            return Permit.REJECTED;
+        }
+
+        return probeInFlight.compareAndSet(false, true)
+                ? Permit.PROBE
+                : Permit.REJECTED;
+    }
+
+    /**
+     * Records successful call. A successful probe closes the circuit. Successes of other calls finishing while the
+     * circuit is open are ignored.
+     *
+     * @param permit permit returned by {@link #tryAcquire()} for the call
+     */
+    public void onSuccess(Permit permit) {
+        if (permit == Permit.PROBE) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+
+            openUntil.set(CLOSED);
+            probeInFlight.set(false);
+            log.info("Circuit closed for transport {}", name);
+            return;
+        }
+
+        if (openUntil.get() == CLOSED) {
+            record(false);
+        }
+    }
+
+    /**
+     * Records failed call. A failed probe keeps the circuit open for another open duration. Failures of other calls
+     * finishing while the circuit is open are ignored.
+     *
+     * @param permit permit returned by {@link #tryAcquire()} for the call
+     */
+    public void onFailure(Permit permit) {
+        if (permit == Permit.PROBE) {
+            openUntil.set(System.nanoTime() + openNanos);
+            probeInFlight.set(false);
+            log.warn("Circuit probe failed for transport {}, circuit stays open", name);
+            return;
+        }
+
+        if (openUntil.get() != CLOSED) {
+            return;
+        }
+
+        record(true);
+
+        if (isFailureRateExceeded() && openUntil.compareAndSet(CLOSED, System.nanoTime() + openNanos)) {
+            log.warn("Circuit opened for transport {}: failure rate threshold {} exceeded, skipping it for {}",
+                    name, policy.failureRateThreshold(), policy.openDuration());
+        }
+    }
+
+    /**
+     * Releases the permit of a call which hasn't been made after all (so the probe, if it was one, can be retried).
+     *
+     * @param permit permit returned by {@link #tryAcquire()} for the call
+     */
+    public void onCancelled(Permit permit) {
+        if (permit == Permit.PROBE) {
+            probeInFlight.set(false);
+        }
+    }
+
+    /**
+     * @return {@code true} if the circuit is open or half-open
+     */
+    public boolean isOpen() {
+        return openUntil.get() != CLOSED;
+    }
+
+    private void record(boolean failure) {
+        long epoch = Math.floorDiv(System.nanoTime(), bucketNanos);
+        int index = (int) Math.floorMod(epoch, BUCKET_COUNT);
+
+        while (true) {
+            long current = buckets.get(index);
+            long updated;
+
+            if ((int) (current >>> 32) == (int) epoch) {
+                long failures = Math.min(MAX_COUNT, ((current >>> 16) & MAX_COUNT) + (failure ? 1 : 0));
+                long successes = Math.min(MAX_COUNT, (current & MAX_COUNT) + (failure ? 0 : 1));
+                updated = (current & 0xFFFF_FFFF_0000_0000L) | (failures << 16) | successes;
+            } else {
+                // bucket left over from an older epoch
+                updated = (epoch << 32) | ((failure ? 1L : 0L) << 16) | (failure ? 0L : 1L);
+            }
+
+            if (buckets.compareAndSet(index, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    private boolean isFailureRateExceeded() {
+        int epoch = (int) Math.floorDiv(System.nanoTime(), bucketNanos);
+        long failures = 0;
+        long calls = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long bucket = buckets.get(i);
+            int age = epoch - (int) (bucket >>> 32);
+
+            if ((bucket != 0) && (age >= 0) && (age < BUCKET_COUNT)) {
+                long bucketFailures = (bucket >>> 16) & MAX_COUNT;
+                failures += bucketFailures;
+                calls += bucketFailures + (bucket & MAX_COUNT);
+            }
+        }
+
+        return (calls >= policy.minimumCalls())
+                && (failures >= policy.failureRateThreshold() * calls);
+    }
+
+    /**
+     * Outcome of {@link #tryAcquire()}.
+     */
+    public enum Permit {
+
+        /**
+         * The call is not permitted.
+         */
+        REJECTED,
+
+        /**
+         * Regular call, the circuit is closed.
+         */
+        CALL,
+
+        /**
+         * The only call let through by the half-open circuit, its outcome decides whether the circuit closes.
+         */
+        PROBE
+    }
+
+}
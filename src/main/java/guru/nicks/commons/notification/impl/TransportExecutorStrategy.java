@@ -0,0 +1,90 @@
+package guru.nicks.commons.notification.impl;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Decides which {@link Executor} each notification transport runs on. Called once per transport, when
+ * {@link NotificationServiceImpl} is constructed. Executors created by the strategy are released (see
+ * {@link #releaseExecutor(Executor)}) when the service is closed.
+ */
+@FunctionalInterface
+public interface TransportExecutorStrategy {
+
+    /**
+     * Runs tasks in the thread submitting them, see {@link #callerThread()}.
+     */
+    Executor CALLER_THREAD = Runnable::run;
+
+    /**
+     * Creates (or picks) executor for the given transport.
+     *
+     * @param transportClass transport class (unwrapped from proxies)
+     * @return executor
+     */
+    Executor createExecutor(Class<?> transportClass);
+
+    /**
+     * Called once per distinct executor returned by {@link #createExecutor(Class)} when the service is closed.
+     * Strategies which create executors are supposed to shut them down; those which merely pick existing ones (owned
+     * by somebody else) must not. Default implementation does nothing.
+     *
+     * @param executor executor no longer used by the service
+     */
+    default void releaseExecutor(Executor executor) {
+        // executor not owned by the strategy
+    }
+
+    /**
+     * Each send is run in a new virtual thread named after the transport. Blocked transports (for example, waiting for
+     * SMTP) don't hold any platform threads, so thousands of concurrent sends are cheap. The executors are shut down
+     * when the service is closed (threads still sending are not interrupted).
+     *
+     * @return strategy
+     */
+    static TransportExecutorStrategy virtualThreadPerTransport() {
+        return new TransportExecutorStrategy() {
+
+            @Override
+            public Executor createExecutor(Class<?> transportClass) {
+                return Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                        .name("notification-" + transportClass.getSimpleName() + "-", 0)
+                        .factory());
+            }
+
+            @Override
+            public void releaseExecutor(Executor executor) {
+                ((ExecutorService) executor).shutdown();
+            }
+
+        };
+    }
+
+    /**
+     * All transports share the same executor, which is not shut down when the service is closed.
+     *
+     * @param executor executor, such as a Spring task executor
+     * @return strategy
+     */
+    static TransportExecutorStrategy shared(Executor executor) {
+        requireNonNull(executor, "executor");
+        return transportClass -> executor;
+    }
+
+    /**
+     * Transports are called sequentially, in the thread sending the notification.
+     * <p>
+     * Limitations: retries (see {@link RetryPolicy}) can't run in the caller thread, which has moved on by then, so
+     * they run in new virtual threads. Transport timeouts and notification deadlines interrupt the caller thread; the
+     * interrupt is cleared afterwards unless the thread had already been interrupted before calling the transport.
+     *
+     * @return strategy
+     */
+    static TransportExecutorStrategy callerThread() {
+        return transportClass -> CALLER_THREAD;
+    }
+
+}
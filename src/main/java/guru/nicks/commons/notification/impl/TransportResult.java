@@ -0,0 +1,85 @@
+package guru.nicks.commons.notification.impl;
+
+import jakarta.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Outcome of sending a notification via a single transport.
+ *
+ * @param transportClass transport class (unwrapped from proxies)
+ * @param status         outcome
+ * @param error          exception thrown by the transport (or the reason the transport wasn't called), {@code null} on
+ *                       success
+ */
+public record TransportResult(
+
+        Class<?> transportClass,
+        Status status,
+        @Nullable RuntimeException error) {
+
+    public static TransportResult success(Class<?> transportClass) {
+        return new TransportResult(transportClass, Status.OK, null);
+    }
+
+    public static TransportResult failure(Class<?> transportClass, RuntimeException error) {
+        return new TransportResult(transportClass, Status.ERROR, error);
+    }
+
+    /**
+     * Creates result for a transport which wasn't called at all.
+     *
+     * @param transportClass transport class
+     * @param reason         why the transport wasn't called
+     * @return result
+     */
+    public static TransportResult skipped(Class<?> transportClass, RuntimeException reason) {
+        return new TransportResult(transportClass, Status.SKIPPED, reason);
+    }
+
+    /**
+     * Creates result for a transport which hasn't finished in time (and has been interrupted or abandoned).
+     *
+     * @param transportClass transport class
+     * @param timeout        time the transport was given
+     * @return result
+     */
+    public static TransportResult timedOut(Class<?> transportClass, Duration timeout) {
+        return new TransportResult(transportClass, Status.TIMEOUT,
+                new CancellationException("timed out after " + timeout.toMillis() + " ms"));
+    }
+
+    public boolean isSuccess() {
+        return status == Status.OK;
+    }
+
+    /**
+     * @return {@code TransportClass[OK]}, {@code TransportClass[ERROR: message]},
+     *         {@code TransportClass[TIMEOUT: timed out after N ms]}, or {@code TransportClass[SKIPPED: reason]}
+     */
+    @Override
+    public String toString() {
+        return transportClass.getName() + ((error == null)
+                ? "[" + status + "]"
+                : "[" + status + ": " + error.getMessage() + "]");
+    }
+
+    /**
+     * Transport outcome.
+     */
+    public enum Status {
+
+        OK,
+        ERROR,
+        /**
+         * Transport hasn't finished within its timeout or the notification deadline.
+         */
+        TIMEOUT,
+        /**
+         * Transport wasn't called (for example, due to rate limiting).
+         */
+        SKIPPED
+    }
+
+}
@@ -0,0 +1,59 @@
+package guru.nicks.commons.notification.impl;
+
+import jakarta.annotation.Nullable;
+import lombok.Builder;
+import lombok.Value;
+import org.slf4j.event.Level;
+
+import java.time.Duration;
+
+/**
+ * Per-transport {@link NotificationServiceImpl} settings.
+ */
+@Value
+@Builder(toBuilder = true)
+public class TransportSettings {
+
+    /**
+     * If set, the transport receives only categories of this log level or more severe ones. For example, with
+     * {@code WARN} it ignores {@code INFO} and {@code DEBUG} categories.
+     */
+    @Nullable
+    Level minLevel;
+
+    /**
+     * Bulkhead size: maximum number of notifications being sent via the transport concurrently. Notifications exceeding
+     * this limit fail immediately, without waiting for the transport, so a hung transport can't pile up threads.
+     */
+    @Builder.Default
+    int maxConcurrentCalls = 100;
+
+    /**
+     * If set, notifications exceeding this rate are not passed to the transport (which is reported as skipped).
+     */
+    @Nullable
+    RateLimit rateLimit;
+
+    /**
+     * If set, the transport is skipped (which is reported as {@code SKIPPED: circuit open}) while its circuit is open,
+     * so a dead transport doesn't add its timeouts to each notification.
+     */
+    @Nullable
+    CircuitBreakerPolicy circuitBreaker;
+
+    /**
+     * If set, failed sends are retried according to this policy. Retries are scheduled (nothing sleeps while waiting
+     * for them) and run on the transport's executor. The transport's bulkhead slot is held until the last attempt.
+     */
+    @Nullable
+    RetryPolicy retryPolicy;
+
+    /**
+     * If set, sending via the transport (including retries) that takes longer than this is reported as
+     * {@code TIMEOUT}, and the thread sending is interrupted. A transport ignoring interrupts is abandoned: it keeps
+     * its bulkhead slot until it actually returns.
+     */
+    @Nullable
+    Duration timeout;
+
+}
@@ -1,5 +1,6 @@
 package guru.nicks.commons.notification.service;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,4 +29,30 @@ public interface EmailService {
      */
     void sendHtml(String from, String to, String subject, String body);
 
+    /**
+     * Sends messages. Default implementation calls {@link #sendHtml(String, String, String, String)} for each message;
+     * implementations are encouraged to send all the messages over a single connection.
+     *
+     * @param emails messages to send
+     */
+    default void sendHtmlBatch(List<HtmlEmail> emails) {
+        for (HtmlEmail email : emails) {
+            sendHtml(email.from(), email.to(), email.subject(), email.body());
+        }
+    }
+
+    /**
+     * Sends messages rendered from templates. Default implementation calls
+     * {@link #sendHtmlWithTemplate(String, String, String, String, Map)} for each message; implementations are
+     * encouraged to send all the messages over a single connection.
+     *
+     * @param emails messages to send
+     */
+    default void sendHtmlBatchWithTemplate(List<TemplatedHtmlEmail> emails) {
+        for (TemplatedHtmlEmail email : emails) {
+            sendHtmlWithTemplate(email.from(), email.to(), email.subject(), email.templateName(),
+                    email.templateContext());
+        }
+    }
+
 }
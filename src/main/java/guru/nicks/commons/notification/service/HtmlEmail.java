@@ -0,0 +1,17 @@
+package guru.nicks.commons.notification.service;
+
+/**
+ * HTML email message.
+ *
+ * @param from    'from' address
+ * @param to      'to' addresses (comma-separated)
+ * @param subject message subject
+ * @param body    message body
+ */
+public record HtmlEmail(
+
+        String from,
+        String to,
+        String subject,
+        String body) {
+}
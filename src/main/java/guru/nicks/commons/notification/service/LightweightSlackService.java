@@ -1,6 +1,8 @@
 package guru.nicks.commons.notification.service;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Implementations are encouraged to leverage retries and circuit breaking.
@@ -15,6 +17,22 @@ public interface LightweightSlackService {
      */
     void send(Map<String, ?> map);
 
+    /**
+     * Same as {@link #send(Map)}, but implementations capable of non-blocking I/O return immediately. This default
+     * implementation blocks the caller thread.
+     *
+     * @param map to be converted to JSON
+     * @return future completed when Slack has accepted the message, or completed exceptionally on error
+     */
+    default CompletableFuture<Void> sendAsync(Map<String, ?> map) {
+        try {
+            send(map);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * Sends plain text message to Slack.
      *
@@ -30,4 +48,44 @@ public interface LightweightSlackService {
      */
     void sendMarkdown(String title, String text);
 
+    /**
+     * Same as {@link #sendMarkdown(String, String)}, but implementations capable of non-blocking I/O return
+     * immediately. This default implementation blocks the caller thread.
+     *
+     * @param title message title (plain text, never {@code null}, can contain emojis)
+     * @param text  Markdown (or just plain text), never {@code null}
+     * @return future completed when Slack has accepted the message, or completed exceptionally on error
+     */
+    default CompletableFuture<Void> sendMarkdownAsync(String title, String text) {
+        try {
+            sendMarkdown(title, text);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Sends Markdown-enriched text messages to Slack. Default implementation calls
+     * {@link #sendMarkdown(String, String)} for each message; implementations are encouraged to coalesce the messages
+     * into as few Slack calls as possible.
+     *
+     * @param messages messages to send, in order
+     */
+    default void sendMarkdownBatch(List<SlackMarkdownMessage> messages) {
+        for (SlackMarkdownMessage message : messages) {
+            sendMarkdown(message.title(), message.text());
+        }
+    }
+
+    /**
+     * Tells if Markdown messages are only enqueued (in memory) to be sent later, so returning from
+     * {@link #sendMarkdown(String, String)} doesn't mean Slack has accepted the message.
+     *
+     * @return {@code false} by default
+     */
+    default boolean isBatching() {
+        return false;
+    }
+
 }
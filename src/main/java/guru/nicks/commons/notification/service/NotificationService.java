@@ -1,6 +1,7 @@
 package guru.nicks.commons.notification.service;
 
 import guru.nicks.commons.feature.FeatureTester;
+import guru.nicks.commons.notification.Notification;
 import guru.nicks.commons.notification.NotificationCategory;
 import guru.nicks.commons.notification.NotificationTransport;
 import guru.nicks.commons.utils.ExceptionUtils;
@@ -10,9 +11,15 @@ import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.togglz.core.Feature;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  * Implementations are supposed to send notifications via {@link NotificationTransport}'s passed to their constructors.
@@ -47,6 +54,34 @@ public interface NotificationService<T extends NotificationCategory> {
      */
     boolean send(T category, String message, Map<String, ?> messageContext);
 
+    /**
+     * Same as {@link #send(NotificationCategory, String, Map)}, but waits for the transports no longer than the given
+     * deadline. Transports still sending by then are considered failed. Default implementation ignores the deadline.
+     *
+     * @param category       message category
+     * @param message        message text
+     * @param messageContext key/value context to append after the message text
+     * @param deadline       maximum time to wait for the transports
+     * @return {@code true} if the message has been sent successfully via at least one transport within the deadline
+     */
+    default boolean sendWithin(T category, String message, Map<String, ?> messageContext, Duration deadline) {
+        return send(category, message, messageContext);
+    }
+
+    /**
+     * Same as {@link #send(NotificationCategory, String, Map)}, but message text and context are built lazily: only if
+     * the message is going to be sent (not dropped due to routing, rate limits, etc.), and only once. Default
+     * implementation evaluates them right away.
+     *
+     * @param category       message category
+     * @param message        supplies message text
+     * @param messageContext supplies key/value context to append after the message text
+     * @return {@code true} if the message has been sent successfully via at least one transport
+     */
+    default boolean send(T category, Supplier<String> message, Supplier<? extends Map<String, ?>> messageContext) {
+        return send(category, message.get(), messageContext.get());
+    }
+
     /**
      * Sends message via all available {@link NotificationTransport}'s and considers it sent if at least one transport
      * succeeds.
@@ -86,4 +121,49 @@ public interface NotificationService<T extends NotificationCategory> {
         return send(category, message, Collections.emptyMap(), t);
     }
 
+    /**
+     * Sends notifications in bulk - for example, problems found by a batch job. Each notification is considered sent
+     * if at least one transport succeeds. Default implementation calls
+     * {@link #send(NotificationCategory, String, Map)} for each notification.
+     *
+     * @param notifications notifications to send
+     * @return per-notification results, in iteration order of the collection: {@code true} if the notification has
+     *         been sent successfully via at least one transport
+     */
+    default List<Boolean> sendAll(Collection<Notification<T>> notifications) {
+        var results = new ArrayList<Boolean>(notifications.size());
+
+        for (Notification<T> notification : notifications) {
+            results.add(send(notification.category(), notification.message(), notification.messageContext()));
+        }
+
+        return results;
+    }
+
+    /**
+     * Sends message asynchronously, returning control to the caller immediately. Default implementation sends the
+     * message synchronously.
+     *
+     * @param category       message category
+     * @param message        message text
+     * @param messageContext key/value context to append after the message text
+     * @return future completed with the {@link #send(NotificationCategory, String, Map)} result (never completed
+     *         exceptionally)
+     */
+    default CompletableFuture<Boolean> sendAsync(T category, String message, Map<String, ?> messageContext) {
+        return CompletableFuture.completedFuture(send(category, message, messageContext));
+    }
+
+    /**
+     * Sends message asynchronously, returning control to the caller immediately.
+     *
+     * @param category message category
+     * @param message  message text
+     * @return future completed with the {@link #send(NotificationCategory, String)} result (never completed
+     *         exceptionally)
+     */
+    default CompletableFuture<Boolean> sendAsync(T category, String message) {
+        return sendAsync(category, message, Collections.emptyMap());
+    }
+
 }
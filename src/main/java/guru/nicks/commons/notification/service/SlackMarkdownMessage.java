@@ -0,0 +1,13 @@
+package guru.nicks.commons.notification.service;
+
+/**
+ * Markdown-enriched Slack message.
+ *
+ * @param title message title (plain text, can contain emojis)
+ * @param text  Markdown (or just plain text)
+ */
+public record SlackMarkdownMessage(
+
+        String title,
+        String text) {
+}
@@ -0,0 +1,21 @@
+package guru.nicks.commons.notification.service;
+
+import java.util.Map;
+
+/**
+ * HTML email message whose body is rendered from a template.
+ *
+ * @param from            'from' address
+ * @param to              'to' addresses (comma-separated)
+ * @param subject         message subject
+ * @param templateName    template name
+ * @param templateContext variables to pass to template
+ */
+public record TemplatedHtmlEmail(
+
+        String from,
+        String to,
+        String subject,
+        String templateName,
+        Map<?, ?> templateContext) {
+}
@@ -1,7 +1,10 @@
 package guru.nicks.commons.cucumber;
 
 import guru.nicks.commons.notification.impl.EmailServiceImpl;
+import guru.nicks.commons.notification.impl.RenderedTemplateCache;
+import guru.nicks.commons.notification.impl.SmtpTransportPool;
 import guru.nicks.commons.notification.service.EmailService;
+import guru.nicks.commons.notification.service.HtmlEmail;
 import guru.nicks.commons.service.FreemarkerTemplateService;
 
 import io.cucumber.java.After;
@@ -11,21 +14,31 @@ import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
 import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
 import jakarta.mail.internet.MimeMessage;
 import lombok.Builder;
 import lombok.Value;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,12 +52,22 @@ public class EmailServiceSteps {
     private MimeMessage mimeMessage;
     @Mock
     private MimeMessageHelper messageHelper;
+    @Mock
+    private JavaMailSenderImpl pooledMailSender;
+    @Mock
+    private Session mailSession;
+    @Mock
+    private Transport smtpTransport;
     private AutoCloseable closeableMocks;
 
+    private SmtpTransportPool transportPool;
+    private RenderedTemplateCache renderedTemplateCache;
+
     private EmailService emailService;
     private Map<String, Object> templateContext;
     private String renderedTemplate;
     private String templateName;
+    private Throwable lastException;
 
     @Before
     public void beforeEachScenario() {
@@ -55,6 +78,10 @@ public class EmailServiceSteps {
 
     @After
     public void afterEachScenario() throws Exception {
+        if (transportPool != null) {
+            transportPool.close();
+        }
+
         closeableMocks.close();
     }
 
@@ -85,6 +112,38 @@ public class EmailServiceSteps {
         emailService = new EmailServiceImpl(mailSender, templateService);
     }
 
+    @Given("an email service is configured with rendered template cache")
+    public void anEmailServiceIsConfiguredWithRenderedTemplateCache() {
+        when(mailSender.createMimeMessage())
+                .thenReturn(mimeMessage);
+
+        renderedTemplateCache = new RenderedTemplateCache(100, 1_000_000);
+        emailService = new EmailServiceImpl(mailSender, templateService, null, renderedTemplateCache);
+    }
+
+    @Given("an email service is configured with SMTP connection pool")
+    public void anEmailServiceIsConfiguredWithSmtpConnectionPool() throws MessagingException {
+        when(pooledMailSender.createMimeMessage())
+                .thenReturn(mimeMessage);
+        when(pooledMailSender.getSession())
+                .thenReturn(mailSession);
+        when(pooledMailSender.getProtocol())
+                .thenReturn("smtp");
+        when(mailSession.getTransport("smtp"))
+                .thenReturn(smtpTransport);
+        when(smtpTransport.isConnected())
+                .thenReturn(true);
+
+        transportPool = new SmtpTransportPool(pooledMailSender, 2, Duration.ofMinutes(1));
+        emailService = new EmailServiceImpl(pooledMailSender, templateService, transportPool);
+    }
+
+    @Given("the SMTP connection fails with an unexpected error")
+    public void theSmtpConnectionFailsWithAnUnexpectedError() throws MessagingException {
+        doThrow(new IllegalStateException("Unexpected SMTP error"))
+                .when(smtpTransport).sendMessage(any(), any());
+    }
+
     @Given("a template {string} exists with context")
     public void aTemplateExistsWithContext(String templateName, java.util.List<TemplateContext> contexts) {
         for (TemplateContext context : contexts) {
@@ -107,6 +166,105 @@ public class EmailServiceSteps {
         emailService.sendHtmlWithTemplate(from, to, subject, templateName, templateContext);
     }
 
+    @When("{int} HTML emails are sent one by one")
+    public void htmlEmailsAreSentOneByOne(int count) {
+        for (int i = 0; i < count; i++) {
+            emailService.sendHtml("from@test.com", "to@test.com", "Subject " + i, "<p>Body " + i + "</p>");
+        }
+    }
+
+    @When("an HTML email is sent and fails")
+    public void anHtmlEmailIsSentAndFails() {
+        lastException = catchThrowable(() ->
+                emailService.sendHtml("from@test.com", "to@test.com", "Subject", "<p>Body</p>"));
+    }
+
+    @When("{int} HTML emails are sent in a batch")
+    public void htmlEmailsAreSentInABatch(int count) {
+        var emails = new ArrayList<HtmlEmail>();
+
+        for (int i = 0; i < count; i++) {
+            emails.add(new HtmlEmail("from@test.com", "to@test.com", "Subject " + i, "<p>Body " + i + "</p>"));
+        }
+
+        emailService.sendHtmlBatch(emails);
+    }
+
+    @Given("the template context also has list {string} with item {string}")
+    public void theTemplateContextAlsoHasList(String key, String item) {
+        templateContext.put(key, new ArrayList<>(List.of(item)));
+    }
+
+    @Given("the template context also has bean {string} named {string}")
+    public void theTemplateContextAlsoHasBean(String key, String name) {
+        templateContext.put(key, new Owner(name));
+    }
+
+    @When("item {string} is added to list {string} of the template context")
+    @SuppressWarnings("unchecked")
+    public void itemIsAddedToList(String item, String key) {
+        ((List<Object>) templateContext.get(key)).add(item);
+    }
+
+    @When("an HTML email with template {string} is sent {int} times")
+    public void anHtmlEmailWithTemplateIsSentTimes(String templateName, int times) {
+        this.templateName = templateName;
+
+        for (int i = 0; i < times; i++) {
+            // a new, but equal, context each time
+            emailService.sendHtmlWithTemplate("from@test.com", "to@test.com", "Subject", templateName,
+                    new HashMap<>(templateContext));
+        }
+    }
+
+    @Then("the template should be rendered {int} time(s)")
+    public void theTemplateShouldBeRenderedTimes(int times) {
+        verify(templateService, times(times)).render(eq(templateName), any());
+    }
+
+    @Then("{int} email(s) should be sent")
+    public void emailsShouldBeSent(int count) {
+        verify(mailSender, times(count)).send(any(MimeMessage.class));
+    }
+
+    @Then("the rendered template cache should have {int} hit(s) and {int} miss(es)")
+    public void theRenderedTemplateCacheShouldHaveHitsAndMisses(int hitCount, int missCount) {
+        var stats = renderedTemplateCache.getStats();
+
+        assertThat(stats.hitCount())
+                .as("hit count")
+                .isEqualTo(hitCount);
+
+        assertThat(stats.missCount())
+                .as("miss count")
+                .isEqualTo(missCount);
+    }
+
+    @Then("the emails should be sent in a single call")
+    public void theEmailsShouldBeSentInASingleCall() {
+        verify(mailSender).send(any(MimeMessage[].class));
+    }
+
+    @Then("{int} SMTP connection(s) should be opened and {int} message(s) sent")
+    public void smtpConnectionsShouldBeOpenedAndMessagesSent(int connectionCount, int messageCount)
+            throws MessagingException {
+        verify(smtpTransport, times(connectionCount)).connect(any(), anyInt(), any(), any());
+        verify(smtpTransport, times(messageCount)).sendMessage(eq(mimeMessage), any());
+    }
+
+    @Then("the failed SMTP connection should be closed and not returned to the pool")
+    public void theFailedSmtpConnectionShouldBeClosed() throws MessagingException {
+        assertThat(lastException)
+                .as("send error")
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(smtpTransport).close();
+
+        assertThat(transportPool.getIdleCount())
+                .as("idle connections")
+                .isZero();
+    }
+
     @Then("the template should be rendered with correct name and parameters")
     public void theTemplateShouldBeRenderedWithCorrectNameAndParameters() {
         verify(templateService).render(templateName, templateContext);
@@ -126,4 +284,14 @@ public class EmailServiceSteps {
 
     }
 
+    /**
+     * Template context value without canonical string form.
+     *
+     * @param name owner name
+     */
+    public record Owner(
+
+            String name) {
+    }
+
 }
@@ -1,10 +1,13 @@
 package guru.nicks.commons.cucumber;
 
 import guru.nicks.commons.cucumber.world.TextWorld;
+import guru.nicks.commons.notification.impl.AbstractLightweightSlackService;
+import guru.nicks.commons.notification.impl.HttpClientSlackServiceImpl;
 import guru.nicks.commons.notification.impl.LightweightSlackServiceImpl;
 import guru.nicks.commons.notification.service.LightweightSlackService;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.cucumber.java.After;
 import io.cucumber.java.Before;
@@ -16,6 +19,7 @@ import io.cucumber.java.en.When;
 import lombok.Builder;
 import lombok.RequiredArgsConstructor;
 import lombok.Value;
+import org.apache.commons.lang3.StringUtils;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -25,19 +29,28 @@ import org.springframework.web.client.RestTemplate;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
- * Step definitions for testing {@link LightweightSlackServiceImpl}.
+ * Step definitions for testing {@link LightweightSlackServiceImpl} and {@link HttpClientSlackServiceImpl}.
  */
 @RequiredArgsConstructor
 public class LightweightSlackServiceSteps {
@@ -48,12 +61,15 @@ public class LightweightSlackServiceSteps {
     @Mock
     private RestTemplate restTemplate;
     @Mock
-    private ObjectMapper objectMapper;
+    private HttpClient httpClient;
+    @Mock
+    private HttpResponse<byte[]> httpResponse;
+    private final ObjectMapper objectMapper = new ObjectMapper();
     private AutoCloseable closeableMocks;
 
     private LightweightSlackService slackService;
     private URL webhookUrl;
-    private String jsonRequest;
+    private CompletableFuture<Void> asyncSendResult;
 
     @Before
     public void beforeEachScenario() {
@@ -62,6 +78,10 @@ public class LightweightSlackServiceSteps {
 
     @After
     public void afterEachScenario() throws Exception {
+        if (slackService instanceof AbstractLightweightSlackService impl) {
+            impl.close();
+        }
+
         closeableMocks.close();
     }
 
@@ -79,6 +99,26 @@ public class LightweightSlackServiceSteps {
         slackService = new LightweightSlackServiceImpl("testService", webhookUrl, restTemplate, objectMapper);
     }
 
+    @Given("a Slack service is configured with webhook URL {string} and batch window of {int} seconds")
+    public void aSlackServiceIsConfiguredWithWebhookURLAndBatchWindow(String url, int seconds)
+            throws MalformedURLException {
+        webhookUrl = URI.create(url).toURL();
+        slackService = new LightweightSlackServiceImpl("testService", webhookUrl, restTemplate, objectMapper,
+                Duration.ofSeconds(seconds));
+    }
+
+    @Given("a non-blocking Slack service is configured with webhook URL {string} and Slack responding with HTTP {int}")
+    public void aNonBlockingSlackServiceIsConfigured(String url, int httpStatus) throws MalformedURLException {
+        when(httpResponse.statusCode())
+                .thenReturn(httpStatus);
+        doReturn(CompletableFuture.completedFuture(httpResponse))
+                .when(httpClient).sendAsync(any(HttpRequest.class), any());
+
+        webhookUrl = URI.create(url).toURL();
+        slackService = new HttpClientSlackServiceImpl("testService", webhookUrl, httpClient, objectMapper,
+                null, null);
+    }
+
     @Given("a webhook URL with unexpanded environment variable {string} is provided")
     public void aWebhookURLWithUnexpandedEnvironmentVariableIsProvided(String url) {
         try {
@@ -92,89 +132,170 @@ public class LightweightSlackServiceSteps {
     }
 
     @When("a plain text message {string} is sent")
-    public void aPlainTextMessageIsSent(String message) throws JsonProcessingException {
-        when(objectMapper.writeValueAsString(any()))
-                .thenReturn("{\"text\":\"" + message + "\"}");
-
+    public void aPlainTextMessageIsSent(String message) {
         slackService.sendPlainText(message);
     }
 
     @When("a Markdown message with title {string} and text {string} is sent")
-    public void aMarkdownMessageWithTitleAndTextIsSent(String title, String text) throws JsonProcessingException {
-        var expectedJson = "{\"blocks\":[{\"type\":\"header\",\"text\":{\"type\":\"plain_text\",\"text\":\"" +
-                title + "\",\"emoji\":true}},{\"type\":\"section\",\"text\":{\"type\":\"mrkdwn\",\"text\":\"" +
-                text + "\"}}]}";
-        when(objectMapper.writeValueAsString(any()))
-                .thenReturn(expectedJson);
-
+    public void aMarkdownMessageWithTitleAndTextIsSent(String title, String text) {
         slackService.sendMarkdown(title, text);
-        jsonRequest = expectedJson;
     }
 
     @When("a Markdown message with title {string} and text of length {int} is sent")
-    public void aMarkdownMessageWithTitleAndTextOfLengthIsSent(String title, int length)
-            throws JsonProcessingException {
-        var text = "a".repeat(length);
-        var expectedText = length > LightweightSlackServiceImpl.MAX_TEXT_LENGTH
-                ? text.substring(0, LightweightSlackServiceImpl.MAX_TEXT_LENGTH)
-                : text;
+    public void aMarkdownMessageWithTitleAndTextOfLengthIsSent(String title, int length) {
+        slackService.sendMarkdown(title, "a".repeat(length));
+    }
+
+    @When("a Markdown message with title {string} and {int} lines of {int} characters is sent")
+    public void aMarkdownMessageWithLinesIsSent(String title, int lineCount, int lineLength) {
+        slackService.sendMarkdown(title, ("x".repeat(lineLength - 1) + "\n").repeat(lineCount));
+    }
 
-        var expectedJson = "{\"blocks\":[{\"type\":\"header\",\"text\":{\"type\":\"plain_text\",\"text\":\"" +
-                title + "\",\"emoji\":true}},{\"type\":\"section\",\"text\":{\"type\":\"mrkdwn\",\"text\":\"" +
-                expectedText + "\"}}]}";
+    @When("a Markdown message with title of length {int} and {int} lines of {int} characters is sent")
+    public void aMarkdownMessageWithLongTitleIsSent(int titleLength, int lineCount, int lineLength) {
+        aMarkdownMessageWithLinesIsSent("t".repeat(titleLength), lineCount, lineLength);
+    }
 
-        when(objectMapper.writeValueAsString(any()))
-                .thenReturn(expectedJson);
+    @When("a Markdown message with title {string} and a code block of {int} lines is sent")
+    public void aMarkdownMessageWithCodeBlockIsSent(String title, int lineCount) {
+        var text = new StringBuilder("Stack trace:\n```\n");
 
-        slackService.sendMarkdown(title, text);
-        jsonRequest = expectedJson;
+        for (int i = 0; i < lineCount; i++) {
+            text.append("    at com.example.Service.method(Service.java:").append(i).append(")\n");
+        }
+
+        slackService.sendMarkdown(title, text.append("```").toString());
     }
 
     @When("a JSON map with the following data is sent:")
-    public void aJSONMapWithTheFollowingDataIsSent(List<SlackMessageData> dataList) throws JsonProcessingException {
+    public void aJSONMapWithTheFollowingDataIsSent(List<SlackMessageData> dataList) {
         var dataMap = new HashMap<String, String>();
 
         for (var data : dataList) {
             dataMap.put(data.getKey(), data.getValue());
         }
 
-        var jsonString = new ObjectMapper().writeValueAsString(dataMap);
-        when(objectMapper.writeValueAsString(any()))
-                .thenReturn(jsonString);
-
         slackService.send(dataMap);
-        jsonRequest = jsonString;
     }
 
-    @Then("the REST template should post to the webhook URL")
-    public void theRESTTemplateShouldPostToTheWebhookURL() {
-        verify(restTemplate).postForEntity(
+    @When("a Markdown message with title {string} and text {string} is sent asynchronously")
+    public void aMarkdownMessageIsSentAsynchronously(String title, String text) {
+        asyncSendResult = slackService.sendMarkdownAsync(title, text);
+    }
+
+    @When("{int} Markdown messages are sent")
+    public void markdownMessagesAreSent(int count) {
+        for (int i = 1; i <= count; i++) {
+            slackService.sendMarkdown("Title " + i, "Text " + i);
+        }
+    }
+
+    @When("the pending Slack batch is flushed")
+    public void thePendingSlackBatchIsFlushed() {
+        ((AbstractLightweightSlackService) slackService).flush();
+    }
+
+    @Then("{int} Slack message(s) should be posted with {int} blocks in total")
+    public void slackMessagesShouldBePostedWithBlocksInTotal(int messageCount, int blockCount)
+            throws JsonProcessingException {
+        verify(restTemplate, timeout(5000).times(messageCount)).postForEntity(
                 eq(webhookUrl.toString()),
                 any(HttpEntity.class),
                 eq(Void.class)
         );
+
+        int totalBlocks = 0;
+        for (String requestBody : captureRequestBodies(messageCount)) {
+            totalBlocks += objectMapper.readTree(requestBody).get("blocks").size();
+        }
+
+        assertThat(totalBlocks)
+                .as("total blocks")
+                .isEqualTo(blockCount);
     }
 
-    @And("the request body should contain {string}")
-    public void theRequestBodyShouldContain(String expectedContent) {
-        ArgumentCaptor<HttpEntity<?>> entityCaptor = ArgumentCaptor.forClass(HttpEntity.class);
+    @Then("each section of {int} Slack message(s) should have balanced code fences and at most {int} characters")
+    public void eachSectionShouldHaveBalancedCodeFences(int messageCount, int maxLength)
+            throws JsonProcessingException {
+        for (String requestBody : captureRequestBodies(messageCount)) {
+            for (JsonNode block : objectMapper.readTree(requestBody).get("blocks")) {
+                if (!"section".equals(block.get("type").asText())) {
+                    continue;
+                }
+
+                String text = block.get("text").get("text").asText();
+
+                assertThat(text.length())
+                        .as("section length")
+                        .isLessThanOrEqualTo(maxLength);
+
+                assertThat(StringUtils.countMatches(text, "```") % 2)
+                        .as("unclosed code fences in section")
+                        .isZero();
+            }
+        }
+    }
 
+    @Then("each header of {int} Slack message(s) should have at most {int} characters")
+    public void eachHeaderShouldHaveAtMostCharacters(int messageCount, int maxLength) throws JsonProcessingException {
+        for (String requestBody : captureRequestBodies(messageCount)) {
+            for (JsonNode block : objectMapper.readTree(requestBody).get("blocks")) {
+                if ("header".equals(block.get("type").asText())) {
+                    assertThat(block.get("text").get("text").asText().length())
+                            .as("header length")
+                            .isLessThanOrEqualTo(maxLength);
+                }
+            }
+        }
+    }
+
+    @Then("the HTTP client should post to the webhook URL")
+    public void theHttpClientShouldPostToTheWebhookURL() {
+        ArgumentCaptor<HttpRequest> requestCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient).sendAsync(requestCaptor.capture(), any());
+
+        assertThat(requestCaptor.getValue().uri())
+                .as("request URI")
+                .hasToString(webhookUrl.toString());
+
+        assertThat(requestCaptor.getValue().method())
+                .as("request method")
+                .isEqualTo("POST");
+    }
+
+    @Then("the asynchronous Slack send should complete successfully")
+    public void theAsynchronousSlackSendShouldCompleteSuccessfully() {
+        assertThat(asyncSendResult)
+                .as("async send result")
+                .succeedsWithin(Duration.ofSeconds(5));
+    }
+
+    @Then("the asynchronous Slack send should fail")
+    public void theAsynchronousSlackSendShouldFail() {
+        assertThat(asyncSendResult)
+                .as("async send result")
+                .failsWithin(Duration.ofSeconds(5));
+    }
+
+    @Then("the REST template should post to the webhook URL")
+    public void theRESTTemplateShouldPostToTheWebhookURL() {
         verify(restTemplate).postForEntity(
-                anyString(),
-                entityCaptor.capture(),
+                eq(webhookUrl.toString()),
+                any(HttpEntity.class),
                 eq(Void.class)
         );
+    }
 
-        var requestBody = entityCaptor.getValue().getBody().toString();
-
-        assertThat(requestBody)
+    @And("the request body should contain {string}")
+    public void theRequestBodyShouldContain(String expectedContent) {
+        assertThat(captureRequestBody())
                 .as("request body")
                 .contains(expectedContent);
     }
 
     @And("the request body should contain a header block with text {string}")
     public void theRequestBodyShouldContainAHeaderBlockWithText(String expectedText) {
-        assertThat(jsonRequest)
+        assertThat(captureRequestBody())
                 .as("request body")
                 .contains("\"type\":\"header\"")
                 .contains("\"text\":\"" + expectedText + "\"");
@@ -182,7 +303,7 @@ public class LightweightSlackServiceSteps {
 
     @And("the request body should contain a section block with text {string}")
     public void theRequestBodyShouldContainASectionBlockWithText(String expectedText) {
-        assertThat(jsonRequest)
+        assertThat(captureRequestBody())
                 .as("request body")
                 .contains("\"type\":\"section\"")
                 .contains("\"type\":\"mrkdwn\"")
@@ -191,15 +312,7 @@ public class LightweightSlackServiceSteps {
 
     @And("the request body should contain a section with text not exceeding {int} characters")
     public void theRequestBodyShouldContainASectionWithTextNotExceedingCharacters(int maxLength) {
-        ArgumentCaptor<HttpEntity<?>> entityCaptor = ArgumentCaptor.forClass(HttpEntity.class);
-
-        verify(restTemplate).postForEntity(
-                anyString(),
-                entityCaptor.capture(),
-                eq(Void.class)
-        );
-
-        var requestBody = entityCaptor.getValue().getBody().toString();
+        var requestBody = captureRequestBody();
 
         // extract the text content between the last "text":"..." in the JSON
         int textStartIndex = requestBody.lastIndexOf("\"text\":\"") + 8;
@@ -211,6 +324,29 @@ public class LightweightSlackServiceSteps {
                 .isLessThanOrEqualTo(maxLength);
     }
 
+    private String captureRequestBody() {
+        return captureRequestBodies(1).getFirst();
+    }
+
+    /**
+     * @return request bodies (sent as UTF-8 JSON bytes) posted to Slack
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> captureRequestBodies(int times) {
+        ArgumentCaptor<HttpEntity<byte[]>> entityCaptor = ArgumentCaptor.forClass(HttpEntity.class);
+
+        verify(restTemplate, times(times)).postForEntity(
+                anyString(),
+                entityCaptor.capture(),
+                eq(Void.class)
+        );
+
+        return entityCaptor.getAllValues()
+                .stream()
+                .map(entity -> new String(entity.getBody(), StandardCharsets.UTF_8))
+                .toList();
+    }
+
     /**
      * Data class for Slack message entries.
      */
@@ -1,14 +1,34 @@
 package guru.nicks.commons.cucumber;
 
 import guru.nicks.commons.cucumber.world.TextWorld;
+import guru.nicks.commons.notification.Notification;
 import guru.nicks.commons.notification.NotificationCategory;
 import guru.nicks.commons.notification.NotificationTransport;
+import guru.nicks.commons.notification.impl.AsyncNotificationQueue.OverflowPolicy;
+import guru.nicks.commons.notification.impl.CircuitBreakerPolicy;
+import guru.nicks.commons.notification.impl.CompletionMode;
+import guru.nicks.commons.notification.impl.LightweightSlackServiceImpl;
+import guru.nicks.commons.notification.impl.MicrometerNotificationMetrics;
 import guru.nicks.commons.notification.impl.NotificationServiceImpl;
-
+import guru.nicks.commons.notification.impl.NotificationServiceSettings;
+import guru.nicks.commons.notification.impl.NotificationTransportImplSlack;
+import guru.nicks.commons.notification.impl.RateLimit;
+import guru.nicks.commons.notification.impl.RetryPolicy;
+import guru.nicks.commons.notification.impl.ThrowableFormatter;
+import guru.nicks.commons.notification.impl.TransportCircuitBreaker;
+import guru.nicks.commons.notification.impl.TransportCircuitBreaker.Permit;
+import guru.nicks.commons.notification.impl.TransportExecutorStrategy;
+import guru.nicks.commons.notification.impl.TransportSettings;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cucumber.java.After;
 import io.cucumber.java.DataTableType;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.annotation.Nonnull;
 import lombok.Builder;
 import lombok.Getter;
@@ -18,14 +38,29 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.event.Level;
+import org.springframework.web.client.RestTemplate;
 import org.togglz.core.Feature;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -47,7 +82,7 @@ public class NotificationServiceSteps {
     private final List<TestNotificationTransport> transports = new ArrayList<>();
     private final TestNotificationTransport transport1 = new TestNotificationTransport("Transport1");
     private final TestNotificationTransport transport2 = new TestNotificationTransport("Transport2");
-    private final TestNotificationTransport transport3 = new TestNotificationTransport("Transport3");
+    private final TestNotificationTransport transport3 = new AlertTestNotificationTransport("Transport3");
 
     private NotificationServiceImpl<TestCategory> notificationService;
     private TestCategory category;
@@ -55,9 +90,49 @@ public class NotificationServiceSteps {
     private Map<String, Object> messageContext = new HashMap<>();
 
     private Boolean sendResult;
-    private boolean featureEnabled = true;
+    private List<Boolean> bulkResults;
+    private volatile boolean featureEnabled = true;
+    private final AtomicInteger featureTesterCalls = new AtomicInteger();
     private Logger fallbackLogger;
     private BiConsumer<String, Throwable> errorNotifier;
+    private final List<CompletableFuture<Boolean>> asyncResults = new ArrayList<>();
+    private final AtomicInteger messageSupplierCalls = new AtomicInteger();
+    private final AtomicInteger messageContextSupplierCalls = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NotificationServiceSettings settings;
+    private Path outboxDirectory;
+    private final List<ExecutorService> createdExecutors = new ArrayList<>();
+    private ExecutorService sharedExecutor;
+    private TransportCircuitBreaker circuitBreaker;
+    private final List<String> formattedExceptions = new ArrayList<>();
+    private final Map<String, Permit> circuitPermits = new HashMap<>();
+    private LightweightSlackServiceImpl slackService;
+    private NotificationTransportImplSlack<TestCategory> slackTransport;
+
+    @After
+    public void afterEachScenario() throws IOException {
+        transports.forEach(TestNotificationTransport::release);
+
+        if (notificationService != null) {
+            notificationService.close();
+        }
+
+        if (sharedExecutor != null) {
+            sharedExecutor.shutdownNow();
+        }
+
+        if (slackService != null) {
+            slackService.close();
+        }
+
+        if (outboxDirectory != null) {
+            try (Stream<Path> paths = Files.walk(outboxDirectory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
 
     @DataTableType
     public MessageContext createMessageContext(Map<String, String> entry) {
@@ -81,20 +156,311 @@ public class NotificationServiceSteps {
         textWorld.setLastException(throwable);
     }
 
+    @When("a throwable formatter fingerprinting {int} frames and printing {int} frames is created")
+    public void aThrowableFormatterIsCreated(int fingerprintDepth, int maxFrames) {
+        var throwable = catchThrowable(() -> new ThrowableFormatter(fingerprintDepth, maxFrames, 5, 1000,
+                ThrowableFormatter.DEFAULT_EXCLUDED_PACKAGES));
+        textWorld.setLastException(throwable);
+    }
+
+    @When("exceptions sharing {int} top frames but called from {string} and {string} are formatted")
+    public void exceptionsSharingTopFramesAreFormatted(int sharedFrameCount, String caller1, String caller2) {
+        var formatter = ThrowableFormatter.withDefaults();
+
+        for (String caller : List.of(caller1, caller2)) {
+            var frames = new ArrayList<StackTraceElement>();
+
+            for (int i = 0; i < sharedFrameCount; i++) {
+                frames.add(new StackTraceElement("com.example.Repository", "query", "Repository.java", i + 1));
+            }
+
+            frames.add(new StackTraceElement("com.example." + caller, "handle", caller + ".java", 42));
+
+            var exception = new IllegalStateException("Query failed");
+            exception.setStackTrace(frames.toArray(StackTraceElement[]::new));
+            formattedExceptions.add(formatter.format(exception));
+        }
+    }
+
+    @Then("formatted exception {int} should contain {string} but not {string}")
+    public void formattedExceptionShouldContain(int number, String expected, String unexpected) {
+        assertThat(formattedExceptions.get(number - 1))
+                .as("formatted exception %d", number)
+                .contains(expected)
+                .doesNotContain(unexpected);
+    }
+
     @Given("a notification service is configured with {int} transport(s)")
     public void notificationServiceIsConfiguredWithTransport(int count) {
-        for (int i = 0; i < count; i++) {
-            var transport = switch (i) {
-                case 0 -> transport1;
-                case 1 -> transport2;
-                case 2 -> transport3;
-                default -> throw new IllegalArgumentException("Unsupported transport index: " + i);
-            };
+        configureService(count, NotificationServiceSettings.builder().build());
+    }
 
-            transports.add(transport);
-        }
+    @Given("a notification service is configured with {int} transport(s) and async queue capacity {int} "
+            + "with overflow policy {string}")
+    public void notificationServiceIsConfiguredWithAsyncQueue(int count, int capacity, String overflowPolicy) {
+        var settings = NotificationServiceSettings.builder()
+                .asyncQueueCapacity(capacity)
+                .asyncWorkerCount(1)
+                .asyncOverflowPolicy(OverflowPolicy.valueOf(overflowPolicy))
+                .build();
+        configureService(count, settings);
+    }
 
-        notificationService = new NotificationServiceImpl<>(transports, feature -> featureEnabled);
+    @Given("a notification service is configured with {int} transport(s) and bulkhead size {int}")
+    public void notificationServiceIsConfiguredWithBulkhead(int count, int bulkheadSize) {
+        var settings = NotificationServiceSettings.builder()
+                .defaultTransportSettings(TransportSettings.builder()
+                        .maxConcurrentCalls(bulkheadSize)
+                        .build())
+                .build();
+        configureService(count, settings);
+    }
+
+    @Given("a notification service is configured with {int} transport(s) and deduplication")
+    public void notificationServiceIsConfiguredWithDeduplication(int count) {
+        var settings = NotificationServiceSettings.builder()
+                .deduplicationTtl(Duration.ofMinutes(1))
+                .deduplicationReportInterval(Duration.ofMinutes(1))
+                .build();
+        configureService(count, settings);
+    }
+
+    @Given("a notification service is configured with {int} transport(s), deduplication, and category {string} rate "
+            + "limit of {int} per minute")
+    public void notificationServiceIsConfiguredWithDeduplicationAndCategoryRateLimit(int count, String category,
+            int permits) {
+        var settings = NotificationServiceSettings.builder()
+                .deduplicationTtl(Duration.ofMinutes(1))
+                .deduplicationReportInterval(Duration.ofMinutes(1))
+                .categoryRateLimits(Map.of(TestCategory.valueOf(category.toUpperCase()), RateLimit.perMinute(permits)))
+                .build();
+        configureService(count, settings);
+    }
+
+    @Given("a notification service is configured with {int} transport(s) and category {string} rate limit of {int} "
+            + "per minute")
+    public void notificationServiceIsConfiguredWithCategoryRateLimit(int count, String category, int permits) {
+        var settings = NotificationServiceSettings.builder()
+                .categoryRateLimits(Map.of(TestCategory.valueOf(category.toUpperCase()), RateLimit.perMinute(permits)))
+                .build();
+        configureService(count, settings);
+    }
+
+    @Given("a notification service is configured with {int} transport(s) and transport rate limit of {int} per minute")
+    public void notificationServiceIsConfiguredWithTransportRateLimit(int count, int permits) {
+        var settings = NotificationServiceSettings.builder()
+                .defaultTransportSettings(TransportSettings.builder()
+                        .rateLimit(RateLimit.perMinute(permits))
+                        .build())
+                .build();
+        configureService(count, settings);
+    }
+
+    @Given("a notification service is configured with {int} transport(s) and circuit breaker opening after {int} "
+            + "failures")
+    public void notificationServiceIsConfiguredWithCircuitBreaker(int count, int failures) {
+        var settings = NotificationServiceSettings.builder()
+                .defaultTransportSettings(TransportSettings.builder()
+                        .circuitBreaker(new CircuitBreakerPolicy(1.0, failures,
+                                Duration.ofMinutes(1), Duration.ofMinutes(1)))
+                        .build())
+                .build();
+        configureService(count, settings);
+    }
+
+    @Given("a circuit breaker opening after {int} failure(s) with {int} ms open duration")
+    public void aCircuitBreakerOpeningAfterFailures(int failures, int openMillis) {
+        circuitBreaker = new TransportCircuitBreaker("Test", new CircuitBreakerPolicy(1.0, failures,
+                Duration.ofMinutes(1), Duration.ofMillis(openMillis)));
+    }
+
+    @When("call {string} is permitted by the circuit breaker")
+    public void callIsPermittedByTheCircuitBreaker(String call) {
+        Permit permit = circuitBreaker.tryAcquire();
+
+        assertThat(permit)
+                .as("permit for call %s", call)
+                .isNotEqualTo(Permit.REJECTED);
+        circuitPermits.put(call, permit);
+    }
+
+    @When("call {string} succeeds")
+    public void callSucceeds(String call) {
+        circuitBreaker.onSuccess(circuitPermits.get(call));
+    }
+
+    @When("call {string} fails")
+    public void callFails(String call) {
+        circuitBreaker.onFailure(circuitPermits.get(call));
+    }
+
+    @When("the circuit breaker open duration of {int} ms elapses")
+    public void theCircuitBreakerOpenDurationElapses(int openMillis) throws InterruptedException {
+        Thread.sleep(openMillis + 10L);
+    }
+
+    @Then("the circuit breaker should be {word}")
+    public void theCircuitBreakerShouldBe(String state) {
+        assertThat(circuitBreaker.isOpen())
+                .as("circuit open")
+                .isEqualTo("open".equals(state));
+    }
+
+    @Then("no call should be permitted by the circuit breaker")
+    public void noCallShouldBePermittedByTheCircuitBreaker() {
+        assertThat(circuitBreaker.tryAcquire())
+                .as("permit")
+                .isEqualTo(Permit.REJECTED);
+    }
+
+    @Given("a notification service is configured with {int} transport(s) and {int} retry attempts")
+    public void notificationServiceIsConfiguredWithRetries(int count, int maxAttempts) {
+        var settings = NotificationServiceSettings.builder()
+                .defaultTransportSettings(TransportSettings.builder()
+                        .retryPolicy(new RetryPolicy(maxAttempts, Duration.ofMillis(10), Duration.ofMillis(50), 2,
+                                Duration.ofSeconds(5), e -> true))
+                        .build())
+                .build();
+        configureService(count, settings);
+    }
+
+    @Given("a notification service is configured with {int} transport(s) called in the caller thread and {int} "
+            + "retry attempts")
+    public void notificationServiceIsConfiguredWithCallerThreadAndRetries(int count, int maxAttempts) {
+        var settings = NotificationServiceSettings.builder()
+                .transportExecutorStrategy(TransportExecutorStrategy.callerThread())
+                .defaultTransportSettings(TransportSettings.builder()
+                        .retryPolicy(new RetryPolicy(maxAttempts, Duration.ofMillis(10), Duration.ofMillis(50), 2,
+                                Duration.ofSeconds(5), e -> true))
+                        .build())
+                .build();
+        configureService(count, settings);
+    }
+
+    @Then("transport {int} should have been last called in thread {string}")
+    public void transportShouldHaveBeenLastCalledInThread(int transportNumber, String threadName) {
+        assertThat(getTransport(transportNumber).getLastThreadName())
+                .as("transport " + transportNumber + " thread")
+                .isEqualTo(threadName);
+    }
+
+    @Given("a notification service is configured with {int} transport(s) and completion mode {string}")
+    public void notificationServiceIsConfiguredWithCompletionMode(int count, String completionMode) {
+        CompletionMode mode = switch (completionMode) {
+            case "ALL" -> CompletionMode.ALL;
+            case "FIRST_SUCCESS" -> CompletionMode.FIRST_SUCCESS;
+            default -> CompletionMode.quorum(Integer.parseInt(completionMode.replaceAll("\\D", "")));
+        };
+
+        var settings = NotificationServiceSettings.builder()
+                .completionMode(mode)
+                .build();
+        configureService(count, settings);
+    }
+
+    @Given("a notification service is configured with {int} transport(s) and transport timeout of {int} ms")
+    public void notificationServiceIsConfiguredWithTransportTimeout(int count, int timeoutMillis) {
+        var settings = NotificationServiceSettings.builder()
+                .defaultTransportSettings(TransportSettings.builder()
+                        .timeout(Duration.ofMillis(timeoutMillis))
+                        .build())
+                .build();
+        configureService(count, settings);
+    }
+
+    @Given("a notification service is configured with {int} transport(s) and executors created per transport")
+    public void notificationServiceIsConfiguredWithCreatedExecutors(int count) {
+        var settings = NotificationServiceSettings.builder()
+                .transportExecutorStrategy(new TransportExecutorStrategy() {
+
+                    @Override
+                    public Executor createExecutor(Class<?> transportClass) {
+                        ExecutorService executor = Executors.newSingleThreadExecutor();
+                        createdExecutors.add(executor);
+                        return executor;
+                    }
+
+                    @Override
+                    public void releaseExecutor(Executor executor) {
+                        ((ExecutorService) executor).shutdown();
+                    }
+
+                })
+                .build();
+        configureService(count, settings);
+    }
+
+    @Given("a notification service is configured with {int} transport(s) and a shared executor")
+    public void notificationServiceIsConfiguredWithSharedExecutor(int count) {
+        sharedExecutor = Executors.newSingleThreadExecutor();
+        var settings = NotificationServiceSettings.builder()
+                .transportExecutorStrategy(TransportExecutorStrategy.shared(sharedExecutor))
+                .build();
+        configureService(count, settings);
+    }
+
+    @Then("all {int} created transport executors should be shut down")
+    public void createdTransportExecutorsShouldBeShutDown(int count) {
+        assertThat(createdExecutors)
+                .as("created executors")
+                .hasSize(count)
+                .allMatch(ExecutorService::isShutdown);
+    }
+
+    @Then("the shared executor should still be running")
+    public void sharedExecutorShouldStillBeRunning() {
+        assertThat(sharedExecutor.isShutdown())
+                .as("shared executor shut down")
+                .isFalse();
+    }
+
+    @Given("a notification service is configured with {int} transport(s) and default deadline of {int} ms")
+    public void notificationServiceIsConfiguredWithDefaultDeadline(int count, int deadlineMillis) {
+        var settings = NotificationServiceSettings.builder()
+                .defaultDeadline(Duration.ofMillis(deadlineMillis))
+                .build();
+        configureService(count, settings);
+    }
+
+    @Given("a notification service is configured with 3 transports and transport 3 receiving {string} and above only")
+    public void notificationServiceIsConfiguredWithTransportMinLevel(String minLevel) {
+        var settings = NotificationServiceSettings.builder()
+                .transportSettings(Map.of(AlertTestNotificationTransport.class, TransportSettings.builder()
+                        .minLevel(Level.valueOf(minLevel))
+                        .build()))
+                .build();
+        configureService(3, settings);
+    }
+
+    @Given("a notification service is configured with 3 transports and level {string} routed to no transports")
+    public void notificationServiceIsConfiguredWithUnroutedLevel(String level) {
+        var settings = NotificationServiceSettings.builder()
+                .levelRoutes(Map.of(Level.valueOf(level), Set.of()))
+                .build();
+        configureService(3, settings);
+    }
+
+    @Given("a notification service is configured with 3 transports and category {string} routed to transport 3 only")
+    public void notificationServiceIsConfiguredWithCategoryRoute(String category) {
+        var settings = NotificationServiceSettings.builder()
+                .categoryRoutes(Map.of(TestCategory.valueOf(category),
+                        Set.of(AlertTestNotificationTransport.class)))
+                .build();
+        configureService(3, settings);
+    }
+
+    @Given("a notification service is configured with {int} transport(s) and an outbox")
+    public void notificationServiceIsConfiguredWithOutbox(int count) throws IOException {
+        outboxDirectory = Files.createTempDirectory("notification-outbox");
+
+        // only the replay on startup matters here
+        var settings = NotificationServiceSettings.builder()
+                .outboxDirectory(outboxDirectory)
+                .outboxSegmentSize(64 * 1024)
+                .outboxReplayInterval(Duration.ofHours(1))
+                .outboxCategoryResolver(TestCategory::valueOf)
+                .build();
+        configureService(count, settings);
     }
 
     @Given("a notification service is configured with duplicate transports")
@@ -113,6 +479,13 @@ public class NotificationServiceSteps {
         transport.setExceptionToThrow(exception);
     }
 
+    @Given("transport {int} fails {int} time(s) with exception {string}")
+    public void transportFailsTimesWithException(int transportNumber, int times, String exceptionClassName) {
+        var transport = getTransport(transportNumber);
+        transport.setExceptionToThrow(createException(exceptionClassName));
+        transport.setFailureLimit(times);
+    }
+
     @When("notification is sent with category {string} message {string} and empty context")
     public void notificationIsSentWithCategoryMessageAndEmptyContext(String category, String message) {
         this.category = TestCategory.valueOf(category.toUpperCase());
@@ -122,6 +495,34 @@ public class NotificationServiceSteps {
         sendResult = notificationService.send(this.category, this.message, this.messageContext);
     }
 
+    @When("notification is sent with category {string} message {string} within {int} ms")
+    public void notificationIsSentWithinDeadline(String category, String message, int deadlineMillis) {
+        this.category = TestCategory.valueOf(category.toUpperCase());
+        this.message = message;
+        this.messageContext = Map.of();
+
+        sendResult = notificationService.sendWithin(this.category, this.message, this.messageContext,
+                Duration.ofMillis(deadlineMillis));
+    }
+
+    @When("notification is sent lazily {int} time(s) with category {string} message {string}")
+    public void notificationIsSentLazily(int times, String category, String message) {
+        this.category = TestCategory.valueOf(category.toUpperCase());
+        this.message = message;
+
+        for (int i = 0; i < times; i++) {
+            sendResult = notificationService.send(this.category,
+                    () -> {
+                        messageSupplierCalls.incrementAndGet();
+                        return message;
+                    },
+                    () -> {
+                        messageContextSupplierCalls.incrementAndGet();
+                        return Map.of("key", "value");
+                    });
+        }
+    }
+
     @When("notification is sent with category {string} message {string} and null context")
     public void notificationIsSentWithCategoryMessageAndNullContext(String category, String message) {
         this.category = TestCategory.valueOf(category.toUpperCase());
@@ -147,6 +548,237 @@ public class NotificationServiceSteps {
         sendResult = notificationService.send(this.category, this.message, this.messageContext);
     }
 
+    @Given("the notification service is bound to a meter registry")
+    public void theNotificationServiceIsBoundToAMeterRegistry() {
+        notificationService.bindMetrics(new MicrometerNotificationMetrics(meterRegistry, "testService"));
+    }
+
+    @Given("transport {int} blocks until released")
+    public void transportBlocksUntilReleased(int transportNumber) {
+        getTransport(transportNumber).blockUntilReleased();
+    }
+
+    @When("notification is sent {int} times with category {string} message {string}")
+    public void notificationIsSentTimes(int times, String category, String message) {
+        for (int i = 0; i < times; i++) {
+            sendResult = notificationService.send(TestCategory.valueOf(category.toUpperCase()), message);
+        }
+    }
+
+    @When("{int} notifications are sent in bulk with category {string}")
+    public void notificationsAreSentInBulk(int count, String category) {
+        var notifications = new ArrayList<Notification<TestCategory>>(count);
+
+        for (int i = 0; i < count; i++) {
+            notifications.add(Notification.of(TestCategory.valueOf(category.toUpperCase()), "Problem " + (i + 1)));
+        }
+
+        bulkResults = notificationService.sendAll(notifications);
+    }
+
+    @When("notification is sent with category {string} message {string} and a {string}")
+    public void notificationIsSentWithException(String category, String message, String exceptionClassName) {
+        sendResult = notificationService.send(TestCategory.valueOf(category.toUpperCase()), message,
+                createException(exceptionClassName));
+    }
+
+    @When("the notification service is closed")
+    public void theNotificationServiceIsClosed() {
+        notificationService.close();
+    }
+
+    @When("the notification service is started")
+    public void theNotificationServiceIsStarted() {
+        notificationService.start();
+    }
+
+    @When("the notification service is restarted")
+    public void theNotificationServiceIsRestarted() {
+        notificationService.close();
+        notificationService = new NotificationServiceImpl<>(transports, feature -> featureEnabled, settings);
+    }
+
+    @Given("transport {int} doesn't confirm delivery")
+    public void transportDoesNotConfirmDelivery(int transportNumber) {
+        getTransport(transportNumber).setConfirmsDelivery(false);
+    }
+
+    @Given("a Slack transport with batch window of {int} seconds")
+    public void aSlackTransportWithBatchWindow(int seconds) throws IOException {
+        var objectMapper = new ObjectMapper();
+        slackService = new LightweightSlackServiceImpl("test", URI.create("https://hooks.slack.com/test").toURL(),
+                mock(RestTemplate.class), objectMapper, (seconds == 0) ? null : Duration.ofSeconds(seconds));
+        slackTransport = new NotificationTransportImplSlack<>(slackService, objectMapper, "billing");
+    }
+
+    @Then("the Slack transport should confirm delivery: {word}")
+    public void theSlackTransportShouldConfirmDelivery(String expected) {
+        assertThat(slackTransport.confirmsDelivery())
+                .as("confirms delivery")
+                .isEqualTo(Boolean.parseBoolean(expected));
+    }
+
+    @When("transport {int} recovers")
+    public void transportRecovers(int transportNumber) {
+        getTransport(transportNumber).setExceptionToThrow(null);
+    }
+
+    @When("notification is sent asynchronously with category {string} message {string}")
+    public void notificationIsSentAsynchronously(String category, String message) {
+        asyncResults.add(notificationService.sendAsync(TestCategory.valueOf(category.toUpperCase()), message));
+    }
+
+    @When("transport {int} has started sending")
+    public void transportHasStartedSending(int transportNumber) throws InterruptedException {
+        assertThat(getTransport(transportNumber).awaitEntered())
+                .as("transport " + transportNumber + " entered")
+                .isTrue();
+    }
+
+    @When("transport {int} is released")
+    public void transportIsReleased(int transportNumber) {
+        getTransport(transportNumber).release();
+    }
+
+    @Then("transport {int} should still be sending")
+    public void transportShouldStillBeSending(int transportNumber) {
+        assertThat(getTransport(transportNumber).isSending())
+                .as("transport " + transportNumber + " sending")
+                .isTrue();
+    }
+
+    @Then("message and context suppliers should have been evaluated {int} time(s) each")
+    public void suppliersShouldHaveBeenEvaluated(int times) {
+        assertThat(messageSupplierCalls.get())
+                .as("message supplier calls")
+                .isEqualTo(times);
+
+        assertThat(messageContextSupplierCalls.get())
+                .as("message context supplier calls")
+                .isEqualTo(times);
+    }
+
+    @Then("transport {int} should eventually stop sending")
+    public void transportShouldEventuallyStopSending(int transportNumber) throws InterruptedException {
+        var transport = getTransport(transportNumber);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (transport.isSending() && (System.nanoTime() < deadline)) {
+            Thread.sleep(10);
+        }
+
+        assertThat(transport.isSending())
+                .as("transport " + transportNumber + " sending")
+                .isFalse();
+    }
+
+    @Then("asynchronous notification {int} should be sent successfully")
+    public void asynchronousNotificationShouldBeSentSuccessfully(int number) throws Exception {
+        assertThat(asyncResults.get(number - 1).get(5, TimeUnit.SECONDS))
+                .as("async result " + number)
+                .isTrue();
+    }
+
+    @Then("asynchronous notification {int} should not be sent successfully")
+    public void asynchronousNotificationShouldNotBeSentSuccessfully(int number) throws Exception {
+        assertThat(asyncResults.get(number - 1).get(5, TimeUnit.SECONDS))
+                .as("async result " + number)
+                .isFalse();
+    }
+
+    @Then("timer {string} with tag {string} = {string} should have recorded {int} time(s)")
+    public void timerShouldHaveRecorded(String name, String tagKey, String tagValue, int count) {
+        long actualCount = meterRegistry.find(name)
+                .tag(tagKey, tagValue)
+                .timers()
+                .stream()
+                .mapToLong(Timer::count)
+                .sum();
+
+        assertThat(actualCount)
+                .as(name + " count")
+                .isEqualTo(count);
+    }
+
+    @When("{int} notifications of distinct non-enum categories with level {string} are dropped")
+    public void notificationsOfNonEnumCategoriesAreDropped(int count, String level) {
+        var metrics = new MicrometerNotificationMetrics(meterRegistry, "test");
+
+        for (int i = 0; i < count; i++) {
+            String description = "Dynamic " + i;
+
+            metrics.recordDropped(new NotificationCategory() {
+
+                @Override
+                public Level getLogLevel() {
+                    return Level.valueOf(level);
+                }
+
+                @Override
+                public String getDescription() {
+                    return description;
+                }
+
+            }, "rateLimit");
+        }
+    }
+
+    @Then("{int} counter(s) named {string} should be registered")
+    public void countersShouldBeRegistered(int count, String name) {
+        assertThat(meterRegistry.find(name).counters())
+                .as(name + " counters")
+                .hasSize(count);
+    }
+
+    @Then("counter {string} with tag {string} = {string} should be {int}")
+    public void counterShouldBe(String name, String tagKey, String tagValue, int count) {
+        double actualCount = meterRegistry.find(name)
+                .tag(tagKey, tagValue)
+                .counters()
+                .stream()
+                .mapToDouble(Counter::count)
+                .sum();
+
+        assertThat(actualCount)
+                .as(name + " count")
+                .isEqualTo(count);
+    }
+
+    @Then("transport {int} should eventually be called at least {int} times")
+    public void transportShouldEventuallyBeCalledAtLeastTimes(int transportNumber, int times)
+            throws InterruptedException {
+        var transport = getTransport(transportNumber);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while ((transport.getCallCount() < times) && (System.nanoTime() < deadline)) {
+            Thread.sleep(10);
+        }
+
+        assertThat(transport.getCallCount())
+                .as("transport " + transportNumber + " call count")
+                .isGreaterThanOrEqualTo(times);
+    }
+
+    @Then("gauge {string} should eventually be {int}")
+    public void gaugeShouldEventuallyBe(String name, int value) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while ((meterRegistry.get(name).gauge().value() != value) && (System.nanoTime() < deadline)) {
+            Thread.sleep(10);
+        }
+
+        assertThat(meterRegistry.get(name).gauge().value())
+                .as(name)
+                .isEqualTo(value);
+    }
+
+    @Then("gauge {string} should be registered")
+    public void gaugeShouldBeRegistered(String name) {
+        assertThat(meterRegistry.find(name).gauge())
+                .as(name)
+                .isNotNull();
+    }
+
     @Then("the notification should be sent successfully")
     public void notificationShouldBeSentSuccessfully() {
         assertThat(sendResult)
@@ -161,6 +793,25 @@ public class NotificationServiceSteps {
                 .isFalse();
     }
 
+    @Then("the bulk results should be {string}")
+    public void bulkResultsShouldBe(String expectedResults) {
+        assertThat(bulkResults)
+                .as("bulk results")
+                .containsExactlyElementsOf(Stream.of(expectedResults.split(","))
+                        .map(String::trim)
+                        .map(Boolean::valueOf)
+                        .toList());
+    }
+
+    @Then("transport {int} should have received {int} batch(es)")
+    public void transportShouldHaveReceivedBatches(int transportNumber, int batchCount) {
+        var transport = getTransport(transportNumber);
+
+        assertThat(transport.getBatchCount())
+                .as("transport " + transportNumber + " batch count")
+                .isEqualTo(batchCount);
+    }
+
     @Then("transport {int} should be called exactly {int} time(s)")
     public void transportShouldBeCalledExactlyTimes(int transportNumber, int times) {
         var transport = getTransport(transportNumber);
@@ -216,6 +867,18 @@ public class NotificationServiceSteps {
         featureEnabled = false;
     }
 
+    @When("feature states are refreshed")
+    public void featureStatesAreRefreshed() {
+        notificationService.refreshFeatureStates();
+    }
+
+    @Then("the feature tester should have been consulted {int} time(s)")
+    public void featureTesterShouldHaveBeenConsulted(int times) {
+        assertThat(featureTesterCalls.get())
+                .as("feature tester calls")
+                .isEqualTo(times);
+    }
+
     @When("an error notifier is created for category {string} with a fallback logger")
     public void errorNotifierIsCreatedForCategoryWithFallbackLogger(String category) {
         var testCategory = TestCategory.valueOf(category.toUpperCase());
@@ -242,6 +905,27 @@ public class NotificationServiceSteps {
                 .contains(expectedFragment);
     }
 
+    private void configureService(int count, NotificationServiceSettings settings) {
+        for (int i = 0; i < count; i++) {
+            var transport = switch (i) {
+                case 0 -> transport1;
+                case 1 -> transport2;
+                case 2 -> transport3;
+                default -> throw new IllegalArgumentException("Unsupported transport index: " + i);
+            };
+
+            transports.add(transport);
+        }
+
+        this.settings = settings;
+        notificationService = new NotificationServiceImpl<>(transports, this::testFeature, settings);
+    }
+
+    private boolean testFeature(Feature feature) {
+        featureTesterCalls.incrementAndGet();
+        return featureEnabled;
+    }
+
     private TestNotificationTransport getTransport(int transportNumber) {
         return transports.get(transportNumber - 1);
     }
@@ -288,9 +972,17 @@ public class NotificationServiceSteps {
 
         private final String name;
         private final AtomicInteger callCount = new AtomicInteger(0);
+        private final AtomicInteger batchCount = new AtomicInteger(0);
 
         @Setter
-        private RuntimeException exceptionToThrow;
+        private volatile RuntimeException exceptionToThrow;
+        /**
+         * Only the first calls (up to this number) throw {@link #exceptionToThrow}.
+         */
+        @Setter
+        private volatile int failureLimit = Integer.MAX_VALUE;
+        @Setter
+        private volatile boolean confirmsDelivery = true;
         @Getter
         private TestCategory lastCategory;
 
@@ -298,6 +990,12 @@ public class NotificationServiceSteps {
         private String lastMessage;
         @Getter
         private Map<String, ?> lastMessageContext;
+        @Getter
+        private volatile String lastThreadName;
+
+        private final AtomicInteger finishedCount = new AtomicInteger(0);
+        private final CountDownLatch enteredLatch = new CountDownLatch(1);
+        private volatile CountDownLatch releaseLatch;
 
         public TestNotificationTransport(String name) {
             this.name = name;
@@ -306,21 +1004,68 @@ public class NotificationServiceSteps {
         @Override
         public void send(@Nonnull TestCategory category, @Nonnull String message,
                 @Nonnull Map<String, ?> messageContext) {
-            callCount.incrementAndGet();
+            int callNumber = callCount.incrementAndGet();
 
             this.lastCategory = category;
             this.lastMessage = message;
             this.lastMessageContext = messageContext;
+            this.lastThreadName = Thread.currentThread().getName();
+            enteredLatch.countDown();
+
+            if (releaseLatch != null) {
+                try {
+                    releaseLatch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
 
-            if (exceptionToThrow != null) {
-                throw exceptionToThrow;
+            try {
+                if ((exceptionToThrow != null) && (callNumber <= failureLimit)) {
+                    throw exceptionToThrow;
+                }
+            } finally {
+                finishedCount.incrementAndGet();
             }
         }
 
+        @Override
+        public void sendBatch(@Nonnull List<Notification<TestCategory>> notifications) {
+            batchCount.incrementAndGet();
+            NotificationTransport.super.sendBatch(notifications);
+        }
+
+        @Override
+        public boolean confirmsDelivery() {
+            return confirmsDelivery;
+        }
+
         public int getCallCount() {
             return callCount.get();
         }
 
+        public int getBatchCount() {
+            return batchCount.get();
+        }
+
+        public boolean isSending() {
+            return finishedCount.get() < callCount.get();
+        }
+
+        public void blockUntilReleased() {
+            releaseLatch = new CountDownLatch(1);
+        }
+
+        public void release() {
+            if (releaseLatch != null) {
+                releaseLatch.countDown();
+            }
+        }
+
+        public boolean awaitEntered() throws InterruptedException {
+            return enteredLatch.await(5, TimeUnit.SECONDS);
+        }
+
         @Override
         public String toString() {
             return name;
@@ -328,6 +1073,17 @@ public class NotificationServiceSteps {
 
     }
 
+    /**
+     * Differs from {@link TestNotificationTransport} by class only, for routing by transport class.
+     */
+    public static class AlertTestNotificationTransport extends TestNotificationTransport {
+
+        public AlertTestNotificationTransport(String name) {
+            super(name);
+        }
+
+    }
+
     /**
      * Data table class for message context.
      */
@@ -0,0 +1,280 @@
+package guru.nicks.commons.cucumber;
+
+import guru.nicks.commons.cucumber.NotificationServiceSteps.TestCategory;
+import guru.nicks.commons.notification.NotificationCategory;
+import guru.nicks.commons.notification.impl.CategoryTitles;
+import guru.nicks.commons.notification.impl.DigestSettings;
+import guru.nicks.commons.notification.impl.NotificationTransportImplEmail;
+import guru.nicks.commons.notification.impl.NotificationTransportImplLog;
+import guru.nicks.commons.notification.service.EmailService;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.cucumber.java.After;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Step definitions for testing built-in notification transports.
+ */
+public class NotificationTransportSteps {
+
+    private final Logger transportLogger = (Logger) LoggerFactory.getLogger(NotificationTransportImplLog.class);
+    private final ListAppender<ILoggingEvent> logAppender = new ListAppender<>();
+    private final AtomicInteger contextFormatCount = new AtomicInteger();
+    private final AtomicInteger titleFormatCount = new AtomicInteger();
+
+    private CategoryTitles<NotificationCategory> categoryTitles;
+    private String lastTitle;
+
+    private NotificationTransportImplLog<TestCategory> logTransport;
+    private ch.qos.logback.classic.Level originalLevel;
+
+    private NotificationTransportImplEmail<TestCategory> emailTransport;
+    private final List<Map<?, ?>> digestContexts = new CopyOnWriteArrayList<>();
+    private final AtomicInteger digestFailuresLeft = new AtomicInteger();
+
+    @After
+    public void afterEachScenario() {
+        if (logTransport != null) {
+            transportLogger.detachAppender(logAppender);
+            transportLogger.setLevel(originalLevel);
+        }
+
+        if (emailTransport != null) {
+            emailTransport.close();
+        }
+    }
+
+    @Given("a log transport with level {string} in {word} mode")
+    public void aLogTransportWithLevel(String level, String mode) {
+        originalLevel = transportLogger.getLevel();
+        transportLogger.setLevel(ch.qos.logback.classic.Level.toLevel(level));
+        logAppender.start();
+        transportLogger.addAppender(logAppender);
+
+        logTransport = new NotificationTransportImplLog<>("structured".equals(mode));
+    }
+
+    @When("a notification with category {string} message {string} and context {string} = {string} is logged")
+    public void aNotificationIsLogged(String category, String message, String key, String value) {
+        logTransport.send(TestCategory.valueOf(category), message, Map.of(key, new CountingValue(value)));
+    }
+
+    @Then("nothing should be logged or formatted")
+    public void nothingShouldBeLoggedOrFormatted() {
+        assertThat(logAppender.list)
+                .as("log events")
+                .isEmpty();
+
+        assertThat(contextFormatCount.get())
+                .as("context formatting count")
+                .isZero();
+    }
+
+    @Then("the log message should be {string}")
+    public void theLogMessageShouldBe(String expectedMessage) {
+        assertThat(logAppender.list)
+                .as("log events")
+                .singleElement()
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .isEqualTo(expectedMessage);
+    }
+
+    @Then("the log message should contain {string}")
+    public void theLogMessageShouldContain(String expectedFragment) {
+        assertThat(logAppender.list)
+                .as("log events")
+                .singleElement()
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .asString()
+                .contains(expectedFragment);
+    }
+
+    @Then("the log event should have key {string} with value {string}")
+    public void theLogEventShouldHaveKeyValue(String key, String value) {
+        assertThat(logAppender.list)
+                .as("log events")
+                .singleElement()
+                .satisfies(event -> assertThat(event.getKeyValuePairs())
+                        .as("key/value pairs")
+                        .anySatisfy(pair -> {
+                            assertThat(pair.key).isEqualTo(key);
+                            assertThat(String.valueOf(pair.value)).isEqualTo(value);
+                        }));
+    }
+
+    @Then("the log event should have no key-value pairs")
+    public void theLogEventShouldHaveNoKeyValuePairs() {
+        assertThat(logAppender.list)
+                .as("log events")
+                .singleElement()
+                .satisfies(event -> assertThat(event.getKeyValuePairs())
+                        .as("key/value pairs")
+                        .isNullOrEmpty());
+    }
+
+    @Given("an email transport in digest mode with {int} ms interval, flush threshold {int}, and capacity {int}")
+    public void anEmailTransportInDigestMode(int intervalMillis, int flushThreshold, int capacity) {
+        EmailService emailService = mock(EmailService.class);
+
+        doAnswer(invocation -> {
+            if (digestFailuresLeft.getAndDecrement() > 0) {
+                throw new IllegalStateException("SMTP server unavailable");
+            }
+
+            digestContexts.add(invocation.getArgument(4));
+            return null;
+        }).when(emailService).sendHtmlWithTemplate(anyString(), anyString(), anyString(), anyString(), any());
+
+        emailTransport = new NotificationTransportImplEmail<>(emailService, "billing", "from@example.com",
+                "to@example.com", "notification", new DigestSettings(Duration.ofMillis(intervalMillis),
+                        flushThreshold, capacity, "notification-digest"));
+    }
+
+    @Given("sending digest emails fails {int} time(s)")
+    public void sendingDigestEmailsFails(int times) {
+        digestFailuresLeft.set(times);
+    }
+
+    @When("{int} notification(s) with category {string} are/is sent via the email transport")
+    public void notificationsAreSentViaTheEmailTransport(int count, String category) {
+        for (int i = 1; i <= count; i++) {
+            emailTransport.send(TestCategory.valueOf(category), category + " " + i, Map.of());
+        }
+    }
+
+    @When("the email transport is closed")
+    public void theEmailTransportIsClosed() {
+        emailTransport.close();
+    }
+
+    @Then("{int} digest email(s) should have been sent")
+    public void digestEmailsShouldHaveBeenSent(int count) {
+        assertThat(digestContexts)
+                .as("digest emails")
+                .hasSize(count);
+    }
+
+    @Then("{int} digest email(s) should eventually have been sent")
+    public void digestEmailsShouldEventuallyHaveBeenSent(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while ((digestContexts.size() < count) && (System.nanoTime() < deadline)) {
+            Thread.sleep(10);
+        }
+
+        digestEmailsShouldHaveBeenSent(count);
+    }
+
+    @Then("digest email {int} should contain messages {string} and dropped count {int}")
+    public void digestEmailShouldContainMessages(int number, String messages, int droppedCount) {
+        Map<?, ?> context = digestContexts.get(number - 1);
+
+        assertThat((List<?>) context.get("messages"))
+                .as("digest messages")
+                .extracting(message -> ((Map<?, ?>) message).get("message"))
+                .containsExactly((Object[]) messages.split(", "));
+
+        assertThat(context.get("droppedCount"))
+                .as("dropped count")
+                .isEqualTo(droppedCount);
+    }
+
+    @Given("category titles for originator {string}")
+    public void categoryTitlesForOriginator(String originator) {
+        categoryTitles = new CategoryTitles<>(category -> {
+            titleFormatCount.incrementAndGet();
+            return category.format(originator);
+        });
+    }
+
+    @When("the title of enum category {string} is requested {int} time(s)")
+    public void theTitleOfEnumCategoryIsRequested(String category, int times) {
+        for (int i = 0; i < times; i++) {
+            lastTitle = categoryTitles.get(TestCategory.valueOf(category));
+        }
+    }
+
+    @When("the title of non-enum category {string} with level {string} is requested {int} time(s)")
+    public void theTitleOfNonEnumCategoryIsRequested(String description, String level, int times) {
+        for (int i = 0; i < times; i++) {
+            // a new (but equal) object each time, as callers building categories on the fly do
+            lastTitle = categoryTitles.get(new DynamicCategory(Level.valueOf(level), description));
+        }
+    }
+
+    @Then("the title should be {string}")
+    public void theTitleShouldBe(String expectedTitle) {
+        assertThat(lastTitle)
+                .as("title")
+                .isEqualTo(expectedTitle);
+    }
+
+    @Then("the title should have been formatted {int} time(s)")
+    public void theTitleShouldHaveBeenFormatted(int times) {
+        assertThat(titleFormatCount.get())
+                .as("title format count")
+                .isEqualTo(times);
+    }
+
+    /**
+     * Non-enum category.
+     *
+     * @param logLevel    log level
+     * @param description description
+     */
+    private record DynamicCategory(
+
+            Level logLevel,
+            String description) implements NotificationCategory {
+
+        @Override
+        public Level getLogLevel() {
+            return logLevel;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+    }
+
+    /**
+     * Counts how many times it's been converted to string.
+     */
+    private class CountingValue {
+
+        private final String value;
+
+        private CountingValue(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            contextFormatCount.incrementAndGet();
+            return value;
+        }
+
+    }
+
+}
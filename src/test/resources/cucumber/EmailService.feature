@@ -24,3 +24,57 @@ Feature: Email Service
       | from           | to            | subject      | template         |
       | from@test.com  | to@test.com   | Test Subject | welcome.ftl      |
       | other@test.com | user@test.com | Hello        | notification.ftl |
+
+  Scenario: Send HTML emails in a batch
+    Given an email service is configured
+    When 3 HTML emails are sent in a batch
+    Then the emails should be sent in a single call
+
+  Scenario: Pooled SMTP connection is reused for subsequent emails
+    Given an email service is configured with SMTP connection pool
+    When 2 HTML emails are sent one by one
+    Then 1 SMTP connection should be opened and 2 messages sent
+
+  Scenario: Batch is sent over a single pooled SMTP connection
+    Given an email service is configured with SMTP connection pool
+    When 3 HTML emails are sent in a batch
+    Then 1 SMTP connection should be opened and 3 messages sent
+
+  Scenario: Pooled SMTP connection is closed on unexpected error
+    Given an email service is configured with SMTP connection pool
+    And the SMTP connection fails with an unexpected error
+    When an HTML email is sent and fails
+    Then the failed SMTP connection should be closed and not returned to the pool
+
+  Scenario: Identical templated emails are rendered only once
+    Given an email service is configured with rendered template cache
+    And a template "alert.ftl" exists with context
+      | key     | value         |
+      | title   | Database down |
+      | message | Retrying      |
+    When an HTML email with template "alert.ftl" is sent 3 times
+    Then the template should be rendered 1 time
+    And 3 emails should be sent
+    And the rendered template cache should have 2 hits and 1 miss
+
+  Scenario: Template context mutated after rendering is rendered again
+    Given an email service is configured with rendered template cache
+    And a template "alert.ftl" exists with context
+      | key   | value         |
+      | title | Database down |
+    And the template context also has list "tags" with item "db"
+    When an HTML email with template "alert.ftl" is sent 2 times
+    And item "urgent" is added to list "tags" of the template context
+    And an HTML email with template "alert.ftl" is sent 2 times
+    Then the template should be rendered 2 times
+    And the rendered template cache should have 2 hits and 2 misses
+
+  Scenario: Template context with values lacking canonical form is not cached
+    Given an email service is configured with rendered template cache
+    And a template "alert.ftl" exists with context
+      | key   | value         |
+      | title | Database down |
+    And the template context also has bean "owner" named "DBA team"
+    When an HTML email with template "alert.ftl" is sent 3 times
+    Then the template should be rendered 3 times
+    And the rendered template cache should have 0 hits and 3 misses
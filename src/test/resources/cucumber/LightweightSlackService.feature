@@ -25,6 +25,26 @@ Feature: Lightweight Slack Service
       | 3000       |
       | 5000       |
 
+  Scenario: Long Markdown text is split into several sections on line boundaries
+    Given a Slack service is configured with webhook URL "https://hooks.slack.com/services/test"
+    When a Markdown message with title "Test" and 100 lines of 100 characters is sent
+    Then 1 Slack message should be posted with 5 blocks in total
+
+  Scenario: Sections exceeding the block limit spill into a follow-up message
+    Given a Slack service is configured with webhook URL "https://hooks.slack.com/services/test"
+    When a Markdown message with title "Test" and 2000 lines of 100 characters is sent
+    Then 2 Slack messages should be posted with 69 blocks in total
+
+  Scenario: Long title is truncated to fit Slack header limit in follow-up messages
+    Given a Slack service is configured with webhook URL "https://hooks.slack.com/services/test"
+    When a Markdown message with title of length 150 and 2000 lines of 100 characters is sent
+    Then each header of 2 Slack messages should have at most 150 characters
+
+  Scenario: Code block split between sections is closed and reopened
+    Given a Slack service is configured with webhook URL "https://hooks.slack.com/services/test"
+    When a Markdown message with title "Test" and a code block of 200 lines is sent
+    Then each section of 1 Slack message should have balanced code fences and at most 3000 characters
+
   Scenario: Sending JSON map to Slack
     Given a Slack service is configured with webhook URL "https://hooks.slack.com/services/test"
     When a JSON map with the following data is sent:
@@ -38,3 +58,27 @@ Feature: Lightweight Slack Service
   Scenario: Handling invalid webhook URL
     Given a webhook URL with unexpanded environment variable "$SLACK_URL" is provided
     Then an exception should be thrown
+
+  Scenario: Markdown messages arriving within batch window are coalesced
+    Given a Slack service is configured with webhook URL "https://hooks.slack.com/services/test" and batch window of 60 seconds
+    When 3 Markdown messages are sent
+    And the pending Slack batch is flushed
+    Then 1 Slack message should be posted with 6 blocks in total
+
+  Scenario: Batch reaching the block limit is sent without waiting for the window to close
+    Given a Slack service is configured with webhook URL "https://hooks.slack.com/services/test" and batch window of 60 seconds
+    When 30 Markdown messages are sent
+    And the pending Slack batch is flushed
+    Then 2 Slack messages should be posted with 60 blocks in total
+
+  Scenario: Sending Markdown message to Slack without blocking
+    Given a non-blocking Slack service is configured with webhook URL "https://hooks.slack.com/services/test" and Slack responding with HTTP 200
+    When a Markdown message with title "Alert" and text "**Important** message" is sent asynchronously
+    Then the HTTP client should post to the webhook URL
+    And the asynchronous Slack send should complete successfully
+
+  Scenario: Non-blocking Slack send fails on error response
+    Given a non-blocking Slack service is configured with webhook URL "https://hooks.slack.com/services/test" and Slack responding with HTTP 500
+    When a Markdown message with title "Alert" and text "**Important** message" is sent asynchronously
+    Then the HTTP client should post to the webhook URL
+    And the asynchronous Slack send should fail
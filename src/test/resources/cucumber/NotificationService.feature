@@ -105,6 +105,20 @@ Feature: Notification Service
     Then the fallback logger should receive the message "Boot failed"
     And transport 1 should be called exactly 0 times
 
+  Scenario: wrapNotifier follows feature toggling without consulting the feature tester on each call
+    Given a notification service is configured with 1 transport
+    And the feature is enabled
+    When an error notifier is created for category "ERROR" with a fallback logger
+    And the error notifier is called with message "First" and a "RuntimeException"
+    And the error notifier is called with message "Second" and a "RuntimeException"
+    Then transport 1 should be called exactly 2 times
+    And the feature tester should have been consulted 1 time
+    When the feature is disabled
+    And feature states are refreshed
+    And the error notifier is called with message "Third" and a "RuntimeException"
+    Then the fallback logger should receive the message "Third"
+    And transport 1 should be called exactly 2 times
+
   Scenario Outline: wrapNotifier respects feature toggle for different categories
     Given a notification service is configured with 1 transport
     And the feature is <featureState>
@@ -118,3 +132,336 @@ Feature: Notification Service
       | ERROR    | enabled      | 1              |
       | INFO     | disabled     | 0              |
       | ERROR    | disabled     | 0              |
+
+  Scenario: Send notification asynchronously
+    Given a notification service is configured with 2 transports
+    When notification is sent asynchronously with category "INFO" message "Async test"
+    Then asynchronous notification 1 should be sent successfully
+    And transport 1 should be called with message containing "Async test"
+    And transport 2 should be called exactly 1 time
+
+  Scenario Outline: Async queue overflow policy decides which notification is dropped
+    Given a notification service is configured with 1 transport and async queue capacity 1 with overflow policy "<policy>"
+    And transport 1 blocks until released
+    When notification is sent asynchronously with category "INFO" message "First"
+    And transport 1 has started sending
+    And notification is sent asynchronously with category "INFO" message "Second"
+    And notification is sent asynchronously with category "INFO" message "Third"
+    And transport 1 is released
+    Then asynchronous notification 1 should be sent successfully
+    And asynchronous notification <dropped> should not be sent successfully
+    And asynchronous notification <sent> should be sent successfully
+    And transport 1 should be called exactly 2 times
+    Examples:
+      | policy      | dropped | sent |
+      | DROP_NEWEST | 3       | 2    |
+      | DROP_OLDEST | 2       | 3    |
+
+  Scenario: Transport bulkhead rejects sends exceeding its size without waiting
+    Given a notification service is configured with 1 transport and bulkhead size 1
+    And transport 1 blocks until released
+    When notification is sent asynchronously with category "INFO" message "First"
+    And transport 1 has started sending
+    And notification is sent with category "INFO" message "Second" and empty context
+    And transport 1 is released
+    Then the notification should not be sent successfully
+    And asynchronous notification 1 should be sent successfully
+    And transport 1 should be called exactly 1 time
+
+  Scenario: Repeated notifications are suppressed and reported once
+    Given a notification service is configured with 1 transport and deduplication
+    When notification is sent 3 times with category "ERROR" message "Database down"
+    Then the notification should be sent successfully
+    And transport 1 should be called exactly 1 time
+    When the notification service is closed
+    Then transport 1 should be called exactly 2 times
+    And transport 1 should be called with message containing "Repeated 2 times"
+    And transport 1 should be called with message containing "Database down"
+
+  Scenario: Different messages are not deduplicated
+    Given a notification service is configured with 1 transport and deduplication
+    When notification is sent 1 times with category "ERROR" message "Database down"
+    And notification is sent 1 times with category "ERROR" message "Cache down"
+    And notification is sent 1 times with category "WARNING" message "Database down"
+    Then transport 1 should be called exactly 3 times
+
+  Scenario: Exception type is part of deduplication fingerprint
+    Given a notification service is configured with 1 transport and deduplication
+    When notification is sent with category "ERROR" message "Call failed" and a "RuntimeException"
+    And notification is sent with category "ERROR" message "Call failed" and a "IllegalStateException"
+    And notification is sent with category "ERROR" message "Call failed" and a "IllegalStateException"
+    Then the notification should be sent successfully
+    And transport 1 should be called exactly 2 times
+
+  Scenario: Exception stack traces are compacted
+    Given a notification service is configured with 1 transport
+    When notification is sent with category "ERROR" message "Call failed" and a "IllegalStateException"
+    Then the notification should be sent successfully
+    And transport 1 should be called with message containing "Call failed: java.lang.IllegalStateException: Illegal state"
+    And transport 1 should be called with message containing "at guru.nicks.commons.cucumber.NotificationServiceSteps"
+    And transport 1 should be called with message containing "filtered"
+
+  Scenario: Stack traces differing only in lower frames are not mixed up
+    When exceptions sharing 15 top frames but called from "OrderService" and "PaymentService" are formatted
+    Then formatted exception 1 should contain "OrderService" but not "PaymentService"
+    And formatted exception 2 should contain "PaymentService" but not "OrderService"
+
+  Scenario: Throwable formatter fingerprinting fewer frames than it prints is rejected
+    When a throwable formatter fingerprinting 8 frames and printing 20 frames is created
+    Then IllegalArgumentException should be thrown
+    And the exception message should contain "Fingerprint depth must not be less than max frames"
+
+  Scenario: Notification dropped by rate limit does not suppress its repeats
+    Given a notification service is configured with 1 transport, deduplication, and category "ERROR" rate limit of 1 per minute
+    When notification is sent 1 times with category "ERROR" message "Disk full"
+    And notification is sent 1 times with category "ERROR" message "Database down"
+    Then the notification should not be sent successfully
+    When notification is sent 1 times with category "ERROR" message "Database down"
+    Then the notification should not be sent successfully
+    And transport 1 should be called exactly 1 time
+
+  Scenario: Suppressed repeats count as sent
+    Given a notification service is configured with 1 transport and deduplication
+    When notification is sent 2 times with category "ERROR" message "Database down"
+    Then the notification should be sent successfully
+    And transport 1 should be called exactly 1 time
+
+  Scenario: Notifications exceeding category rate limit are dropped
+    Given a notification service is configured with 1 transport and category "ERROR" rate limit of 2 per minute
+    When notification is sent 3 times with category "ERROR" message "Database down"
+    Then the notification should not be sent successfully
+    And transport 1 should be called exactly 2 times
+    When notification is sent 1 times with category "INFO" message "Unlimited category"
+    Then the notification should be sent successfully
+    And transport 1 should be called exactly 3 times
+
+  Scenario: Transports exceeding their rate limit are skipped
+    Given a notification service is configured with 2 transports and transport rate limit of 1 per minute
+    When notification is sent 2 times with category "INFO" message "Limited"
+    Then the notification should not be sent successfully
+    And transport 1 should be called exactly 1 time
+    And transport 2 should be called exactly 1 time
+
+  Scenario: Transport and dispatch measurements are published to Micrometer
+    Given a notification service is configured with 2 transports and deduplication
+    And the notification service is bound to a meter registry
+    And transport 2 fails with exception "RuntimeException"
+    When notification is sent 2 times with category "ERROR" message "Measured"
+    Then timer "notification.transport.duration" with tag "outcome" = "ok" should have recorded 1 time
+    And timer "notification.transport.duration" with tag "outcome" = "error" should have recorded 1 time
+    And timer "notification.dispatch.duration" with tag "category" = "ERROR" should have recorded 1 time
+    And counter "notification.sent" with tag "outcome" = "sent" should be 1
+    And counter "notification.dropped" with tag "reason" = "duplicate" should be 1
+    And gauge "notification.async.queue.size" should be registered
+    And gauge "notification.dedup.entries" should be registered
+
+  Scenario: Non-enum categories share a bounded set of meters
+    When 3 notifications of distinct non-enum categories with level "WARN" are dropped
+    Then 1 counter named "notification.dropped" should be registered
+    And counter "notification.dropped" with tag "category" = "other" should be 3
+
+  Scenario: Notification not delivered by some transports is replayed from the outbox after restart
+    Given a notification service is configured with 2 transports and an outbox
+    And transport 2 fails with exception "RuntimeException"
+    When notification is sent with category "ERROR" message "Disk full" and empty context
+    And transport 2 recovers
+    And the notification service is restarted
+    And the notification service is bound to a meter registry
+    Then transport 2 should be called exactly 1 time
+    When the notification service is started
+    Then transport 2 should eventually be called at least 2 times
+    And transport 2 should be called with message containing "Disk full"
+    And transport 1 should be called exactly 1 time
+    And gauge "notification.outbox.pending" should eventually be 0
+
+  Scenario: Transport not confirming delivery is not covered by the outbox
+    Given a notification service is configured with 2 transports and an outbox
+    And transport 2 doesn't confirm delivery
+    And transport 2 fails with exception "RuntimeException"
+    When notification is sent with category "ERROR" message "Buffered" and empty context
+    And the notification service is restarted
+    And the notification service is bound to a meter registry
+    And the notification service is started
+    Then gauge "notification.outbox.pending" should eventually be 0
+    And transport 2 should be called exactly 1 time
+
+  Scenario Outline: Slack transport confirms delivery only if its Slack service doesn't batch messages
+    Given a Slack transport with batch window of <batchWindow> seconds
+    Then the Slack transport should confirm delivery: <confirmsDelivery>
+
+    Examples:
+      | batchWindow | confirmsDelivery |
+      | 0           | true             |
+      | 60          | false            |
+
+  Scenario: Failing transport is skipped once its circuit opens
+    Given a notification service is configured with 2 transports and circuit breaker opening after 2 failures
+    And the notification service is bound to a meter registry
+    And transport 2 fails with exception "RuntimeException"
+    When notification is sent 4 times with category "INFO" message "Circuit"
+    Then the notification should be sent successfully
+    And transport 1 should be called exactly 4 times
+    And transport 2 should be called exactly 2 times
+    And gauge "notification.circuit.open" should eventually be 1
+
+  Scenario: Outcome of a call started before the circuit opened doesn't decide the probe
+    Given a circuit breaker opening after 1 failure with 50 ms open duration
+    When call "stale" is permitted by the circuit breaker
+    And call "failing" is permitted by the circuit breaker
+    And call "failing" fails
+    Then the circuit breaker should be open
+    When the circuit breaker open duration of 50 ms elapses
+    And call "probe" is permitted by the circuit breaker
+    And call "stale" succeeds
+    Then the circuit breaker should be open
+    And no call should be permitted by the circuit breaker
+    When call "probe" succeeds
+    Then the circuit breaker should be closed
+
+  Scenario: Failed transport send is retried with backoff
+    Given a notification service is configured with 2 transports and 3 retry attempts
+    And transport 2 fails 2 times with exception "RuntimeException"
+    When notification is sent with category "ERROR" message "Flaky" and empty context
+    Then the notification should be sent successfully
+    And transport 1 should be called exactly 1 time
+    And transport 2 should be called exactly 3 times
+
+  Scenario: Transport called in the caller thread is retried in a separate thread, not in the scheduler
+    Given a notification service is configured with 1 transport called in the caller thread and 2 retry attempts
+    And transport 1 fails 1 time with exception "RuntimeException"
+    When notification is sent with category "ERROR" message "Flaky" and empty context
+    Then the notification should be sent successfully
+    And transport 1 should be called exactly 2 times
+    And transport 1 should have been last called in thread "notification-retry"
+
+  Scenario: Transport send is not retried beyond max attempts
+    Given a notification service is configured with 1 transport and 2 retry attempts
+    And transport 1 fails with exception "RuntimeException"
+    When notification is sent with category "ERROR" message "Dead" and empty context
+    Then the notification should not be sent successfully
+    And transport 1 should be called exactly 2 times
+
+  Scenario Outline: Send returns once completion mode criterion is met, slow transport finishes in background
+    Given a notification service is configured with 3 transports and completion mode "<mode>"
+    And transport 3 blocks until released
+    When notification is sent with category "INFO" message "Quick" and empty context
+    Then the notification should be sent successfully
+    And transport 3 should still be sending
+    And transport 1 should eventually be called at least 1 times
+    And transport 2 should eventually be called at least 1 times
+    When transport 3 is released
+    Then transport 3 should be called exactly 1 time
+
+    Examples:
+      | mode          |
+      | FIRST_SUCCESS |
+      | QUORUM(2)     |
+
+  Scenario: Transport overrunning its timeout is interrupted and reported as timed out
+    Given a notification service is configured with 2 transports and transport timeout of 200 ms
+    And the notification service is bound to a meter registry
+    And transport 2 blocks until released
+    When notification is sent with category "INFO" message "Hung" and empty context
+    Then the notification should be sent successfully
+    And transport 2 should eventually stop sending
+    And timer "notification.transport.duration" with tag "outcome" = "ok" should have recorded 1 time
+    And timer "notification.transport.duration" with tag "outcome" = "timeout" should have recorded 1 time
+    And timer "notification.transport.duration" with tag "outcome" = "error" should have recorded 0 times
+
+  Scenario: Send gives up on transports still sending when its deadline expires
+    Given a notification service is configured with 1 transport
+    And the notification service is bound to a meter registry
+    And transport 1 blocks until released
+    When notification is sent with category "ERROR" message "Late" within 200 ms
+    Then the notification should not be sent successfully
+    And timer "notification.transport.duration" with tag "outcome" = "timeout" should have recorded 1 time
+
+  Scenario: Default deadline applies to sends without an explicit one
+    Given a notification service is configured with 2 transports and default deadline of 200 ms
+    And transport 1 blocks until released
+    And transport 2 blocks until released
+    When notification is sent with category "ERROR" message "Late" and empty context
+    Then the notification should not be sent successfully
+    And transport 1 should eventually stop sending
+    And transport 2 should eventually stop sending
+
+  Scenario: Transport with minimum level ignores less severe categories
+    Given a notification service is configured with 3 transports and transport 3 receiving "WARN" and above only
+    When notification is sent with category "INFO" message "Routine" and empty context
+    Then the notification should be sent successfully
+    And transport 1 should be called exactly 1 time
+    And transport 2 should be called exactly 1 time
+    And transport 3 should be called exactly 0 times
+
+  Scenario: Notification of a level routed to no transports is dropped without touching them
+    Given a notification service is configured with 3 transports and level "INFO" routed to no transports
+    And the notification service is bound to a meter registry
+    When notification is sent with category "INFO" message "Nowhere" and a "RuntimeException"
+    Then the notification should not be sent successfully
+    And transport 1 should be called exactly 0 times
+    And transport 2 should be called exactly 0 times
+    And transport 3 should be called exactly 0 times
+    And counter "notification.dropped" with tag "reason" = "unrouted" should be 1
+
+  Scenario: Category route overrides level routing
+    Given a notification service is configured with 3 transports and category "ERROR" routed to transport 3 only
+    When notification is sent with category "ERROR" message "Page me" and empty context
+    Then the notification should be sent successfully
+    And transport 1 should be called exactly 0 times
+    And transport 2 should be called exactly 0 times
+    And transport 3 should be called exactly 1 time
+
+  Scenario: Lazy message and context are built once per send, however many transports accept it
+    Given a notification service is configured with 3 transports
+    When notification is sent lazily 1 time with category "INFO" message "Lazy"
+    Then the notification should be sent successfully
+    And all 3 transports should be called
+    And message and context suppliers should have been evaluated 1 time each
+
+  Scenario: Lazy message and context are not built for unrouted notifications
+    Given a notification service is configured with 3 transports and level "INFO" routed to no transports
+    When notification is sent lazily 1 time with category "INFO" message "Lazy"
+    Then the notification should not be sent successfully
+    And message and context suppliers should have been evaluated 0 times each
+
+  Scenario: Lazy message and context are not built when no transport accepts the notification
+    Given a notification service is configured with 2 transports and transport rate limit of 1 per minute
+    When notification is sent lazily 2 times with category "INFO" message "Lazy"
+    Then the notification should not be sent successfully
+    And message and context suppliers should have been evaluated 1 time each
+
+  Scenario: Notifications sent in bulk reach each transport in a single batch
+    Given a notification service is configured with 2 transports
+    When 3 notifications are sent in bulk with category "ERROR"
+    Then the bulk results should be "true, true, true"
+    And transport 1 should have received 1 batch
+    And transport 2 should have received 1 batch
+    And transport 1 should be called exactly 3 times
+    And transport 2 should be called with message containing "Problem 3"
+
+  Scenario: Bulk results are reported per notification
+    Given a notification service is configured with 1 transport and category "ERROR" rate limit of 2 per minute
+    When 3 notifications are sent in bulk with category "ERROR"
+    Then the bulk results should be "true, true, false"
+    And transport 1 should have received 1 batch
+    And transport 1 should be called exactly 2 times
+
+  Scenario: Bulk notifications fail when all transports fail
+    Given a notification service is configured with 2 transports
+    And transport 1 fails with exception "RuntimeException"
+    And transport 2 fails with exception "RuntimeException"
+    When 2 notifications are sent in bulk with category "ERROR"
+    Then the bulk results should be "false, false"
+
+  Scenario: Transport executors created by the service are shut down on close
+    Given a notification service is configured with 2 transports and executors created per transport
+    When notification is sent with category "INFO" message "Before shutdown" and empty context
+    And the notification service is closed
+    Then transport 1 should be called exactly 1 time
+    And all 2 created transport executors should be shut down
+
+  Scenario: Shared transport executor is not shut down on close
+    Given a notification service is configured with 2 transports and a shared executor
+    When notification is sent with category "INFO" message "Before shutdown" and empty context
+    And the notification service is closed
+    Then the shared executor should still be running
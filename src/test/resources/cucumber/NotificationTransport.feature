@@ -0,0 +1,81 @@
+Feature: Built-in notification transports
+
+  Scenario: Log transport formats nothing below logger level
+    Given a log transport with level "WARN" in text mode
+    When a notification with category "INFO" message "Cache warmed up" and context "region" = "eu-west" is logged
+    Then nothing should be logged or formatted
+
+  Scenario: Log transport formats nothing below logger level in structured mode
+    Given a log transport with level "ERROR" in structured mode
+    When a notification with category "WARNING" message "Disk almost full" and context "disk" = "sda1" is logged
+    Then nothing should be logged or formatted
+
+  Scenario: Log transport appends context to message text
+    Given a log transport with level "INFO" in text mode
+    When a notification with category "ERROR" message "Disk full" and context "disk" = "sda1" is logged
+    Then the log message should contain "Error: Disk full"
+    And the log message should contain "sda1"
+    And the log event should have no key-value pairs
+
+  Scenario: Log transport emits context as key-value pairs in structured mode
+    Given a log transport with level "INFO" in structured mode
+    When a notification with category "ERROR" message "Disk full" and context "disk" = "sda1" is logged
+    Then the log message should be "Error: Disk full"
+    And the log event should have key "disk" with value "sda1"
+
+  Scenario: Enum category title is formatted once and cached
+    Given category titles for originator "billing"
+    When the title of enum category "ERROR" is requested 3 times
+    Then the title should be "[error] billing - Error"
+    And the title should have been formatted 1 time
+
+  Scenario: Non-enum category title is formatted each time
+    Given category titles for originator "billing"
+    When the title of non-enum category "Payment declined" with level "WARN" is requested 3 times
+    Then the title should be "[warn] billing - Payment declined"
+    And the title should have been formatted 3 times
+
+  Scenario: Email digest is sent at each interval
+    Given an email transport in digest mode with 100 ms interval, flush threshold 10, and capacity 20
+    When 2 notifications with category "INFO" are sent via the email transport
+    Then 0 digest emails should have been sent
+    And 1 digest email should eventually have been sent
+    And digest email 1 should contain messages "INFO 1, INFO 2" and dropped count 0
+
+  Scenario: Email digest is sent once the flush threshold is reached
+    Given an email transport in digest mode with 3600000 ms interval, flush threshold 3, and capacity 10
+    When 2 notifications with category "WARNING" are sent via the email transport
+    Then 0 digest emails should have been sent
+    When 1 notification with category "WARNING" is sent via the email transport
+    Then 1 digest email should have been sent
+    And digest email 1 should contain messages "WARNING 1, WARNING 2, WARNING 3" and dropped count 0
+
+  Scenario: Email digest of an error category is sent right away
+    Given an email transport in digest mode with 3600000 ms interval, flush threshold 10, and capacity 20
+    When 1 notification with category "INFO" is sent via the email transport
+    And 1 notification with category "ERROR" is sent via the email transport
+    Then 1 digest email should have been sent
+    And digest email 1 should contain messages "ERROR 1" and dropped count 0
+
+  Scenario: Pending email digests are sent on close
+    Given an email transport in digest mode with 3600000 ms interval, flush threshold 10, and capacity 20
+    When 2 notifications with category "INFO" are sent via the email transport
+    And the email transport is closed
+    Then 1 digest email should have been sent
+    And digest email 1 should contain messages "INFO 1, INFO 2" and dropped count 0
+
+  Scenario: Email digest failed to send is put back into its buffer
+    Given an email transport in digest mode with 3600000 ms interval, flush threshold 2, and capacity 10
+    And sending digest emails fails 1 time
+    When 2 notifications with category "INFO" are sent via the email transport
+    Then 0 digest emails should have been sent
+    When the email transport is closed
+    Then 1 digest email should have been sent
+    And digest email 1 should contain messages "INFO 1, INFO 2" and dropped count 0
+
+  Scenario: Email digest reports notifications dropped due to buffer overflow
+    Given an email transport in digest mode with 3600000 ms interval, flush threshold 2, and capacity 2
+    And sending digest emails fails 1 time
+    When 3 notifications with category "INFO" are sent via the email transport
+    Then 1 digest email should have been sent
+    And digest email 1 should contain messages "INFO 1, INFO 2" and dropped count 1